@@ -0,0 +1,109 @@
+package org.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** The cache implementations compared by {@link CacheBenchmark}, behind one interface. */
+interface BenchmarkCache {
+    Integer get(Integer key);
+
+    void put(Integer key, Integer value);
+
+    static BenchmarkCache create(String type, int capacity) {
+        switch (type) {
+            case "LRUCache":
+                return new SynchronizedLRUCache(capacity);
+            case "ConcurrentLRUCache":
+                return new ConcurrentLRU(new ConcurrentLRUCache<>(capacity, 64));
+            case "ConcurrentLRUCache_buffered":
+                return new ConcurrentLRU(new ConcurrentLRUCache<>(capacity, 64, true));
+            case "LinkedHashMap":
+                return new SynchronizedLinkedHashMap(capacity);
+            case "ConcurrentHashMap":
+                return new UnboundedConcurrentHashMap(capacity);
+            default:
+                throw new IllegalArgumentException("unknown cache type: " + type);
+        }
+    }
+}
+
+/** The original single-threaded cache behind one global monitor. */
+class SynchronizedLRUCache implements BenchmarkCache {
+    private final LRUCache<Integer, Integer> cache;
+
+    SynchronizedLRUCache(int capacity) {
+        this.cache = new LRUCache<>(capacity);
+    }
+
+    @Override
+    public synchronized Integer get(Integer key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public synchronized void put(Integer key, Integer value) {
+        cache.put(key, value);
+    }
+}
+
+class ConcurrentLRU implements BenchmarkCache {
+    private final ConcurrentLRUCache<Integer, Integer> cache;
+
+    ConcurrentLRU(ConcurrentLRUCache<Integer, Integer> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Integer get(Integer key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public void put(Integer key, Integer value) {
+        cache.put(key, value);
+    }
+}
+
+/** Baseline: the JDK's access-ordered LinkedHashMap, globally synchronized. */
+class SynchronizedLinkedHashMap implements BenchmarkCache {
+    private final Map<Integer, Integer> map;
+
+    SynchronizedLinkedHashMap(int capacity) {
+        this.map = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Integer get(Integer key) {
+        return map.get(key);
+    }
+
+    @Override
+    public synchronized void put(Integer key, Integer value) {
+        map.put(key, value);
+    }
+}
+
+/** Upper bound: a ConcurrentHashMap with no eviction at all. */
+class UnboundedConcurrentHashMap implements BenchmarkCache {
+    private final Map<Integer, Integer> map;
+
+    UnboundedConcurrentHashMap(int capacity) {
+        this.map = new ConcurrentHashMap<>(capacity);
+    }
+
+    @Override
+    public Integer get(Integer key) {
+        return map.get(key);
+    }
+
+    @Override
+    public void put(Integer key, Integer value) {
+        map.put(key, value);
+    }
+}
@@ -0,0 +1,47 @@
+package org.example;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs {@link CacheBenchmark} once per thread count and writes one JSON result file
+ * per run. Each run reports throughput (ops/us), sampled latency percentiles
+ * including p0.99, and {@code gc.alloc.rate.norm} (bytes allocated per operation).
+ * <pre>
+ * java -cp target/benchmarks.jar org.example.BenchmarkRunner [threadCounts] [param=value[,value...]]...
+ * java -cp target/benchmarks.jar org.example.BenchmarkRunner 1,8,32 cacheType=ConcurrentLRUCache readPercent=90,50
+ * </pre>
+ * Each {@code param=values} pair overrides one {@code @Param} of the benchmark.
+ */
+public class BenchmarkRunner {
+    private static final String DEFAULT_THREADS = "1,2,4,8,16,32,64";
+
+    public static void main(String[] args) throws RunnerException {
+        String threadCounts = args.length > 0 ? args[0] : DEFAULT_THREADS;
+        String[][] params = new String[Math.max(args.length - 1, 0)][];
+        for (int i = 1; i < args.length; i++) {
+            params[i - 1] = args[i].split("=", 2);
+            if (params[i - 1].length != 2 || params[i - 1][0].isEmpty()) {
+                throw new IllegalArgumentException("expected param=value[,value...], got: " + args[i]);
+            }
+        }
+
+        for (String threads : threadCounts.split(",")) {
+            OptionsBuilder builder = new OptionsBuilder();
+            builder.include(CacheBenchmark.class.getSimpleName())
+                    .threads(Integer.parseInt(threads.trim()))
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("cache-benchmark-" + threads.trim() + "-threads.json");
+            for (String[] param : params) {
+                builder.param(param[0], param[1].split(","));
+            }
+            Options options = builder.build();
+            new Runner(options).run();
+        }
+    }
+}
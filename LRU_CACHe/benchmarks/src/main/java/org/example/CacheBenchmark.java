@@ -0,0 +1,92 @@
+package org.example;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read/write mix against each cache implementation. A read is cache-aside: on a miss
+ * the key is put. Thread count comes from JMH ({@code -t}) or {@link BenchmarkRunner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+    private static final int KEY_COUNT = 1 << 20;
+    private static final int MASK = KEY_COUNT - 1;
+
+    @Param({"LRUCache", "ConcurrentLRUCache", "ConcurrentLRUCache_buffered", "LinkedHashMap", "ConcurrentHashMap"})
+    String cacheType;
+
+    @Param({"UNIFORM", "ZIPFIAN", "SCAN", "BURSTY"})
+    Workload workload;
+
+    /** Percentage of operations that are reads. */
+    @Param({"100", "90", "50"})
+    int readPercent;
+
+    @Param({"65536"})
+    int capacity;
+
+    @Param({"1048576"})
+    int keySpace;
+
+    BenchmarkCache cache;
+    Integer[] keys;
+    boolean[] reads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        keys = workload.generate(KEY_COUNT, keySpace, random);
+        reads = new boolean[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            reads[i] = random.nextInt(100) < readPercent;
+        }
+
+        cache = BenchmarkCache.create(cacheType, capacity);
+        for (int i = 0; i < capacity; i++) {
+            cache.put(keys[i], keys[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int index;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            // Start each thread at a different point of the shared trace.
+            index = new Random().nextInt(KEY_COUNT);
+        }
+    }
+
+    @Benchmark
+    public Integer readWrite(ThreadState thread) {
+        int i = thread.index++ & MASK;
+        Integer key = keys[i];
+        if (reads[i]) {
+            Integer value = cache.get(key);
+            if (value == null) {
+                cache.put(key, key);
+            }
+            return value;
+        }
+        cache.put(key, key);
+        return key;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Key access patterns for {@link CacheBenchmark}. Keys are generated up front into an
+ * array of pre-boxed {@code Integer}s so the measured loop neither computes random
+ * numbers nor allocates.
+ */
+public enum Workload {
+    /** Every key in the key space is equally likely. */
+    UNIFORM {
+        @Override
+        Integer[] generate(int length, int keySpace, Random random) {
+            Integer[] keys = new Integer[length];
+            for (int i = 0; i < length; i++) {
+                keys[i] = random.nextInt(keySpace);
+            }
+            return keys;
+        }
+    },
+
+    /** Skewed popularity (Zipf, s = 0.99): a small hot set receives most requests. */
+    ZIPFIAN {
+        @Override
+        Integer[] generate(int length, int keySpace, Random random) {
+            return zipfian(length, keySpace, random);
+        }
+    },
+
+    /** Zipfian traffic where 20% of requests are a sequential scan over cold keys. */
+    SCAN {
+        @Override
+        Integer[] generate(int length, int keySpace, Random random) {
+            Integer[] keys = zipfian(length, keySpace, random);
+            int cold = keySpace;
+            for (int i = 0; i < length; i++) {
+                if (i % 5 == 0) {
+                    keys[i] = cold++;
+                }
+            }
+            return keys;
+        }
+    },
+
+    /** Zipfian traffic whose hot set jumps to a different key range every 64K requests. */
+    BURSTY {
+        @Override
+        Integer[] generate(int length, int keySpace, Random random) {
+            Integer[] keys = zipfian(length, keySpace, random);
+            for (int i = 0; i < length; i++) {
+                int phase = i >>> 16;
+                keys[i] = (keys[i] + phase * (keySpace / 7)) % keySpace;
+            }
+            return keys;
+        }
+    };
+
+    abstract Integer[] generate(int length, int keySpace, Random random);
+
+    private static Integer[] zipfian(int length, int keySpace, Random random) {
+        double[] cumulative = new double[keySpace];
+        double sum = 0;
+        for (int i = 0; i < keySpace; i++) {
+            sum += 1.0 / Math.pow(i + 1, 0.99);
+            cumulative[i] = sum;
+        }
+
+        // Scatter ranks over the key space so hot keys don't share a segment.
+        int[] permutation = new int[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            permutation[i] = i;
+        }
+        for (int i = keySpace - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+
+        Integer[] keys = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            keys[i] = permutation[Math.min(rank < 0 ? -rank - 1 : rank, keySpace - 1)];
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.function.Consumer;
+
+/**
+ * Adaptive Replacement Cache (Megiddo &amp; Modha). {@code T1} holds entries seen once
+ * recently, {@code T2} entries seen at least twice; the ghost lists {@code B1} and
+ * {@code B2} remember keys recently evicted from each. A miss that hits a ghost list
+ * shifts the target size {@code p} of {@code T1} towards the list that would have
+ * kept it, so the policy continuously balances recency against frequency.
+ */
+public class ArcPolicy<K, V> implements EvictionPolicy<K, V> {
+    private static final int T1 = 1;
+    private static final int T2 = 2;
+
+    private final int capacity;
+    private final EntryList<K, V> t1 = new EntryList<>();
+    private final EntryList<K, V> t2 = new EntryList<>();
+    private final LinkedHashSet<K> b1 = new LinkedHashSet<>();
+    private final LinkedHashSet<K> b2 = new LinkedHashSet<>();
+    private int p;
+
+    // The entry being inserted; ARC's REPLACE runs before the new entry is placed,
+    // so it must not be chosen as its own victim.
+    private CacheEntry<K, V> pending;
+    private boolean pendingFromB2;
+
+    public ArcPolicy(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public void onInsert(CacheEntry<K, V> entry) {
+        pending = entry;
+        pendingFromB2 = false;
+        if (b1.remove(entry.key)) {
+            p = Math.min(capacity, p + Math.max(b2.size() / Math.max(b1.size(), 1), 1));
+            entry.queue = T2;
+            t2.addFirst(entry);
+        } else if (b2.remove(entry.key)) {
+            p = Math.max(0, p - Math.max(b1.size() / Math.max(b2.size(), 1), 1));
+            pendingFromB2 = true;
+            entry.queue = T2;
+            t2.addFirst(entry);
+        } else {
+            entry.queue = T1;
+            t1.addFirst(entry);
+        }
+    }
+
+    @Override
+    public void onAccess(CacheEntry<K, V> entry) {
+        pending = null;
+        if (entry.queue == T1) {
+            t1.remove(entry);
+            entry.queue = T2;
+            t2.addFirst(entry);
+        } else {
+            t2.moveToFront(entry);
+        }
+    }
+
+    @Override
+    public void onRemove(CacheEntry<K, V> entry) {
+        if (entry == pending) {
+            pending = null;
+        }
+        (entry.queue == T1 ? t1 : t2).remove(entry);
+    }
+
+    @Override
+    public CacheEntry<K, V> evict() {
+        int t1Size = t1.size() - (pending != null && pending.queue == T1 ? 1 : 0);
+        int t2Size = t2.size() - (pending != null && pending.queue == T2 ? 1 : 0);
+
+        boolean fromT1 = t1Size >= 1 && (t1Size > p || (pendingFromB2 && t1Size == p));
+        if (!fromT1 && t2Size == 0) {
+            fromT1 = t1Size >= 1;
+        }
+
+        CacheEntry<K, V> victim;
+        if (fromT1) {
+            victim = t1.removeLast();
+            b1.add(victim.key);
+        } else if (t2Size >= 1) {
+            victim = t2.removeLast();
+            b2.add(victim.key);
+        } else if (pending == null) {
+            return null;
+        } else {
+            // Only the pending entry is left.
+            victim = (pending.queue == T1 ? t1 : t2).removeLast();
+            pending = null;
+            return victim;
+        }
+        trimGhosts();
+        return victim;
+    }
+
+    @Override
+    public void forEachHottestFirst(Consumer<? super CacheEntry<K, V>> action) {
+        t2.forEach(action);
+        t1.forEach(action);
+    }
+
+    // Keeps |T1| + |B1| <= c and the whole directory within 2c.
+    private void trimGhosts() {
+        while (!b1.isEmpty() && t1.size() + b1.size() > capacity) {
+            removeOldest(b1);
+        }
+        while ((!b1.isEmpty() || !b2.isEmpty()) && t1.size() + t2.size() + b1.size() + b2.size() > 2 * capacity) {
+            removeOldest(b2.isEmpty() ? b1 : b2);
+        }
+    }
+
+    private static <K> void removeOldest(LinkedHashSet<K> ghosts) {
+        Iterator<K> oldest = ghosts.iterator();
+        oldest.next();
+        oldest.remove();
+    }
+}
@@ -2,9 +2,19 @@ package org.example;
 
 public class CacheEntry<K, V> {
     K key;
-    V value;
+    volatile V value;
     CacheEntry<K, V> prev;
     CacheEntry<K, V> next;
+    int queue;
+    int weight;
+    // Set once the entry leaves its cache for any reason, so copies held elsewhere
+    // can tell they are stale.
+    volatile boolean removed;
+
+    long writeTime;
+    volatile long expirationTime;
+    CacheEntry<K, V> prevInTimer;
+    CacheEntry<K, V> nextInTimer;
 
     public CacheEntry(K key, V value) {
         this.key = key;
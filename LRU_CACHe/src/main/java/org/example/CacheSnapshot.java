@@ -0,0 +1,254 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Saves a cache's entries to a memory-mapped file and restores them on startup, so a
+ * deploy does not begin with a cold cache. Entries are written most recently used
+ * first, as the cache visits them; load reads the file from the end and inserts each
+ * entry as it goes, least recently used first, which rebuilds the original recency
+ * order without buffering. Expiration times are not preserved: restored entries
+ * start a fresh TTL.
+ * <p>
+ * {@code save} writes a temporary file next to the target and atomically renames it,
+ * so a crash never leaves a half-written snapshot behind. {@code load} checks every
+ * length field and fails with an {@code IOException} naming the offset of the
+ * damage; entries read before that point stay in the cache.
+ * <p>
+ * File layout: {@code int magic, int version, long entryCount}, then per entry
+ * {@code int keyLength, key bytes, int valueLength, value bytes, int recordLength},
+ * where the trailing {@code recordLength} covers the fields before it and lets the
+ * file be walked backwards.
+ */
+public final class CacheSnapshot {
+    private static final int MAGIC = 0x4C525543; // "LRUC"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final long REGION_BYTES = 64L << 20;
+
+    private CacheSnapshot() {
+    }
+
+    /** Writes {@code cache} to {@code file}, replacing it atomically; returns the number of entries written. */
+    public static <K, V> long save(LRUCache<K, V> cache, Path file, Codec<K> keyCodec, Codec<V> valueCodec)
+            throws IOException {
+        return save(cache::forEachMostRecentFirst, file, keyCodec, valueCodec);
+    }
+
+    /**
+     * Writes {@code cache} to {@code file} while it keeps serving: each segment is
+     * locked only long enough to copy its entry references.
+     */
+    public static <K, V> long save(ConcurrentLRUCache<K, V> cache, Path file, Codec<K> keyCodec, Codec<V> valueCodec)
+            throws IOException {
+        return save(cache::forEachMostRecentFirst, file, keyCodec, valueCodec);
+    }
+
+    /** Loads a snapshot into {@code cache}; returns the number of entries read. */
+    public static <K, V> long load(Path file, Codec<K> keyCodec, Codec<V> valueCodec, LRUCache<K, V> cache)
+            throws IOException {
+        return load(file, keyCodec, valueCodec, cache::put);
+    }
+
+    public static <K, V> long load(Path file, Codec<K> keyCodec, Codec<V> valueCodec, ConcurrentLRUCache<K, V> cache)
+            throws IOException {
+        return load(file, keyCodec, valueCodec, cache::put);
+    }
+
+    private static <K, V> long save(Consumer<BiConsumer<K, V>> source, Path file,
+                                    Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            long count = write(source, temp, keyCodec, valueCodec);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static <K, V> long write(Consumer<BiConsumer<K, V>> source, Path file,
+                                     Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedWriter writer = new MappedWriter(channel);
+            writer.ensure(HEADER_BYTES);
+            writer.buffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+
+            long[] count = new long[1];
+            source.accept((key, value) -> {
+                byte[] keyBytes = keyCodec.encode(key);
+                byte[] valueBytes = valueCodec.encode(value);
+                long recordLength = 2L * Integer.BYTES + keyBytes.length + valueBytes.length;
+                try {
+                    if (recordLength + Integer.BYTES > Integer.MAX_VALUE) {
+                        throw new IOException("entry of " + recordLength + " bytes is too large for a snapshot");
+                    }
+                    writer.ensure((int) recordLength + Integer.BYTES);
+                } catch (IOException e) {
+                    throw new SnapshotException(e);
+                }
+                writer.buffer.putInt(keyBytes.length).put(keyBytes)
+                        .putInt(valueBytes.length).put(valueBytes)
+                        .putInt((int) recordLength);
+                count[0]++;
+            });
+
+            long size = writer.position();
+            writer.buffer.force();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 8, Long.BYTES);
+            header.putLong(0, count[0]);
+            header.force();
+            channel.truncate(size);
+            channel.force(true);
+            return count[0];
+        } catch (SnapshotException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <K, V> long load(Path file, Codec<K> keyCodec, Codec<V> valueCodec, BiConsumer<K, V> sink)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("truncated cache snapshot: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a cache snapshot: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported cache snapshot version " + version + ": " + file);
+            }
+            long count = header.getLong();
+            if (count < 0 || count > (size - HEADER_BYTES) / (3 * Integer.BYTES)) {
+                throw corrupt(file, 8, "entry count " + count + " does not fit the file size " + size);
+            }
+
+            // Newest record last: walking back from the end visits the least recently used first.
+            BackwardReader reader = new BackwardReader(channel);
+            long end = size;
+            for (long i = 0; i < count; i++) {
+                long trailer = end - Integer.BYTES;
+                if (trailer < HEADER_BYTES) {
+                    throw corrupt(file, end, "only " + i + " of " + count + " entries present");
+                }
+                reader.map(trailer, end);
+                int recordLength = reader.getInt(trailer);
+                long start = trailer - recordLength;
+                if (recordLength < 2 * Integer.BYTES || recordLength > Integer.MAX_VALUE - Integer.BYTES
+                        || start < HEADER_BYTES) {
+                    throw corrupt(file, trailer, "record length " + recordLength);
+                }
+                reader.map(start, end);
+                int keyLength = reader.getInt(start);
+                if (keyLength < 0 || keyLength > recordLength - 2 * Integer.BYTES) {
+                    throw corrupt(file, start, "key length " + keyLength + " in a record of " + recordLength + " bytes");
+                }
+                long valueAt = start + Integer.BYTES + keyLength;
+                int valueLength = reader.getInt(valueAt);
+                if (valueLength != recordLength - 2 * Integer.BYTES - keyLength) {
+                    throw corrupt(file, valueAt, "value length " + valueLength + " in a record of " + recordLength + " bytes");
+                }
+                K key = keyCodec.decode(reader.get(start + Integer.BYTES, keyLength));
+                V value = valueCodec.decode(reader.get(valueAt + Integer.BYTES, valueLength));
+                sink.accept(key, value);
+                end = start;
+            }
+            if (end != HEADER_BYTES) {
+                throw corrupt(file, end, "data left before the first of " + count + " entries");
+            }
+            return count;
+        }
+    }
+
+    private static IOException corrupt(Path file, long offset, String problem) {
+        return new IOException("corrupt cache snapshot " + file + " at offset " + offset + ": " + problem);
+    }
+
+    // Maps the file one region at a time, re-mapping at the current position
+    // whenever the next record does not fit in the current region.
+    private static final class MappedWriter {
+        private final FileChannel channel;
+        private long regionStart;
+        MappedByteBuffer buffer;
+
+        MappedWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer != null && buffer.remaining() >= bytes) {
+                return;
+            }
+            long position = position();
+            if (buffer != null) {
+                buffer.force();
+            }
+            regionStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(REGION_BYTES, bytes));
+        }
+
+        long position() {
+            return buffer == null ? 0 : regionStart + buffer.position();
+        }
+    }
+
+    // Maps the file one region at a time from the end towards the header; each new
+    // region ends where the requested range does and reaches back up to REGION_BYTES.
+    private static final class BackwardReader {
+        private final FileChannel channel;
+        private long regionStart;
+        private long regionEnd;
+        private MappedByteBuffer buffer;
+
+        BackwardReader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // Makes [start, end) readable; the caller has checked it lies within the file.
+        void map(long start, long end) throws IOException {
+            if (buffer != null && start >= regionStart && end <= regionEnd) {
+                return;
+            }
+            regionEnd = end;
+            regionStart = Math.min(start, Math.max(HEADER_BYTES, end - REGION_BYTES));
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionEnd - regionStart);
+        }
+
+        int getInt(long position) {
+            return buffer.getInt((int) (position - regionStart));
+        }
+
+        byte[] get(long position, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get((int) (position - regionStart), bytes);
+            return bytes;
+        }
+    }
+
+    // Carries an IOException out of the entry callback.
+    private static final class SnapshotException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SnapshotException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.example;
+
+/** An immutable snapshot of a cache's {@link StatsCounter}. */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long evictionCount;
+    private final long evictionWeight;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long[] getLatencyCounts;
+    private final long[] putLatencyCounts;
+
+    CacheStats(long hitCount, long missCount, long putCount, long evictionCount, long evictionWeight,
+               long loadSuccessCount, long loadFailureCount, long totalLoadTime,
+               long[] getLatencyCounts, long[] putLatencyCounts) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.getLatencyCounts = getLatencyCounts;
+        this.putLatencyCounts = putLatencyCounts;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public long putCount() {
+        return putCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    public long evictionWeight() {
+        return evictionWeight;
+    }
+
+    public long loadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long loadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long totalLoadTime() {
+        return totalLoadTime;
+    }
+
+    public double averageLoadPenalty() {
+        long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? 0.0 : (double) totalLoadTime / loads;
+    }
+
+    /** Approximate {@code get} latency in nanoseconds at the given percentile (0-100). */
+    public long getLatency(double percentile) {
+        return LatencyHistogram.percentile(getLatencyCounts, percentile);
+    }
+
+    /** Approximate {@code put} latency in nanoseconds at the given percentile (0-100). */
+    public long putLatency(double percentile) {
+        return LatencyHistogram.percentile(putLatencyCounts, percentile);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hitCount
+                + ", misses=" + missCount
+                + ", hitRate=" + String.format("%.4f", hitRate())
+                + ", puts=" + putCount
+                + ", evictions=" + evictionCount
+                + ", loadSuccesses=" + loadSuccessCount
+                + ", loadFailures=" + loadFailureCount
+                + ", avgLoadPenaltyNanos=" + String.format("%.0f", averageLoadPenalty())
+                + ", getP99Nanos=" + getLatency(99)
+                + ", putP99Nanos=" + putLatency(99)
+                + '}';
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/** Publishes a cache's {@link CacheStats} through the platform MBean server. */
+public class CacheStatsBean implements CacheStatsMXBean {
+    private final Supplier<CacheStats> stats;
+
+    public CacheStatsBean(Supplier<CacheStats> stats) {
+        this.stats = stats;
+    }
+
+    /** Registers as {@code org.example:type=CacheStats,name=<cacheName>}. */
+    public static ObjectName register(String cacheName, Supplier<CacheStats> stats) {
+        try {
+            ObjectName name = new ObjectName("org.example:type=CacheStats,name=" + ObjectName.quote(cacheName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new CacheStatsBean(stats), name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("could not register stats MBean for " + cacheName, e);
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return stats.get().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return stats.get().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return stats.get().hitRate();
+    }
+
+    @Override
+    public long getPutCount() {
+        return stats.get().putCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return stats.get().evictionCount();
+    }
+
+    @Override
+    public long getLoadSuccessCount() {
+        return stats.get().loadSuccessCount();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return stats.get().loadFailureCount();
+    }
+
+    @Override
+    public double getAverageLoadPenaltyNanos() {
+        return stats.get().averageLoadPenalty();
+    }
+
+    @Override
+    public long getGetLatencyP50Nanos() {
+        return stats.get().getLatency(50);
+    }
+
+    @Override
+    public long getGetLatencyP99Nanos() {
+        return stats.get().getLatency(99);
+    }
+
+    @Override
+    public long getPutLatencyP50Nanos() {
+        return stats.get().putLatency(50);
+    }
+
+    @Override
+    public long getPutLatencyP99Nanos() {
+        return stats.get().putLatency(99);
+    }
+}
@@ -0,0 +1,17 @@
+package org.example;
+
+import java.util.Map;
+
+/**
+ * Backing store for a write-behind {@link LRUCache}. Called from the cache's flush
+ * thread with the latest value of each dirty key; a key updated ten times between
+ * flushes is written once.
+ */
+@FunctionalInterface
+public interface CacheWriter<K, V> {
+    /**
+     * Persists {@code entries}. If this throws, the entries stay dirty and are
+     * retried on the next flush.
+     */
+    void writeAll(Map<K, V> entries);
+}
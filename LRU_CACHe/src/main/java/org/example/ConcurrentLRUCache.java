@@ -0,0 +1,669 @@
+package org.example;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+public class ConcurrentLRUCache<K, V> {
+    private static final int MAX_SEGMENTS = 1 << 16;
+    private static final long HOT_SET_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int HOT_SET_CHECK_INTERVAL = 1024;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+    private final boolean bufferedReads;
+
+    // Loads in progress, shared by every caller that misses on the same key.
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private Executor executor = ForkJoinPool.commonPool();
+    private Ticker ticker = Ticker.system();
+    private long refreshAfterWriteNanos = -1;
+
+    private StatsCounter stats = StatsCounter.disabled();
+    private boolean recordingStats;
+
+    // Heavy-hitter tracking and per-thread copies of the hottest keys' entries.
+    // Updates are made in place, so a copy only goes stale when its entry is removed.
+    private HotKeyTracker<K> hotKeys;
+    private int replicaSize;
+    private final AtomicReference<HotSet<K>> hotSet = new AtomicReference<>(new HotSet<>(Set.of(), 0));
+    private final ThreadLocal<Replica<K, V>> replicas = ThreadLocal.withInitial(Replica::new);
+
+    public ConcurrentLRUCache(int capacity, int concurrencyLevel) {
+        this(capacity, concurrencyLevel, false);
+    }
+
+    /**
+     * With {@code bufferedReads}, a hit never blocks: the entry is looked up in the
+     * segment's concurrent map and only appended to a lossy read buffer. Recency
+     * updates are applied later, in batches, by whichever thread wins the segment's
+     * try-lock or next writes to it.
+     */
+    public ConcurrentLRUCache(int capacity, int concurrencyLevel, boolean bufferedReads) {
+        this(capacity, concurrencyLevel, bufferedReads, segmentCapacity -> new LruPolicy<>());
+    }
+
+    /**
+     * Gives each segment its own {@link EvictionPolicy}, created by
+     * {@code policyFactory} from the segment's capacity.
+     */
+    public ConcurrentLRUCache(int capacity, int concurrencyLevel, boolean bufferedReads,
+                              IntFunction<EvictionPolicy<K, V>> policyFactory) {
+        if (capacity <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("capacity and concurrencyLevel must be positive");
+        }
+
+        // Power-of-two segment count, never more segments than entries.
+        int limit = Math.min(Math.min(concurrencyLevel, capacity), MAX_SEGMENTS);
+        int segmentCount = Integer.highestOneBit(limit);
+
+        this.segments = newSegmentArray(segmentCount);
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.bufferedReads = bufferedReads;
+        for (int i = 0; i < segmentCount; i++) {
+            // The remainder goes one entry each to the first segments, so the
+            // capacities add up to exactly capacity.
+            int segmentCapacity = capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0);
+            segments[i] = new Segment<>(segmentCapacity, policyFactory.apply(segmentCapacity), bufferedReads);
+        }
+    }
+
+    /** Applies {@link LRUCache#expireAfterWrite} to every segment; call before use. */
+    public ConcurrentLRUCache<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+        for (Segment<K, V> segment : segments) {
+            segment.cache.expireAfterWrite(duration, unit);
+        }
+        return this;
+    }
+
+    /** Applies {@link LRUCache#expireAfterAccess} to every segment; call before use. */
+    public ConcurrentLRUCache<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+        for (Segment<K, V> segment : segments) {
+            segment.cache.expireAfterAccess(duration, unit);
+        }
+        return this;
+    }
+
+    /**
+     * Makes {@link #get(Object, Function)} reload an entry asynchronously once it is
+     * older than {@code duration}, while callers keep receiving the current value.
+     * Combined with a longer {@code expireAfterWrite}, hot keys are refreshed before
+     * they ever expire.
+     */
+    public ConcurrentLRUCache<K, V> refreshAfterWrite(long duration, TimeUnit unit) {
+        this.refreshAfterWriteNanos = unit.toNanos(duration);
+        for (Segment<K, V> segment : segments) {
+            segment.cache.recordWriteTime();
+        }
+        return this;
+    }
+
+    /** Executor used for refresh-ahead loads; defaults to the common pool. */
+    public ConcurrentLRUCache<K, V> executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /** Delivers removal notifications asynchronously on the common pool. */
+    public ConcurrentLRUCache<K, V> removalListener(RemovalListener<K, V> listener) {
+        return removalListener(listener, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reports removals from every segment to {@code listener}. Segments enqueue into
+     * one shared queue that {@code executor} drains in batches, so notifications
+     * are delivered one at a time, in the order the segments published them.
+     */
+    public ConcurrentLRUCache<K, V> removalListener(RemovalListener<K, V> listener, Executor executor) {
+        RemovalDispatcher<K, V> dispatcher = new RemovalDispatcher<>(listener, executor);
+        for (Segment<K, V> segment : segments) {
+            segment.cache.removalDispatcher(dispatcher);
+        }
+        return this;
+    }
+
+    public ConcurrentLRUCache<K, V> ticker(Ticker ticker) {
+        this.ticker = ticker;
+        for (Segment<K, V> segment : segments) {
+            segment.cache.ticker(ticker);
+        }
+        return this;
+    }
+
+    /** Records statistics for all segments into one shared {@link ConcurrentStatsCounter}. */
+    public ConcurrentLRUCache<K, V> recordStats() {
+        this.stats = new ConcurrentStatsCounter();
+        this.recordingStats = true;
+        for (Segment<K, V> segment : segments) {
+            segment.cache.recordStats(stats);
+        }
+        return this;
+    }
+
+    /**
+     * Samples one in {@code sampleRate} gets and puts into a {@link HotKeyTracker}
+     * that keeps the {@code capacity} most frequent keys; see {@link #hotKeys(int)}.
+     */
+    public ConcurrentLRUCache<K, V> trackHotKeys(int capacity, int sampleRate) {
+        this.hotKeys = new HotKeyTracker<>(capacity, sampleRate);
+        return this;
+    }
+
+    /**
+     * Serves the {@code count} hottest keys from a thread-local read-only map before
+     * touching their segment, so a handful of dominant keys stop contending on one
+     * lock. The hot set is recomputed about once a second. Updates change the shared
+     * entry in place; once an entry is invalidated, evicted or expired, the next read
+     * of its key in each thread goes to the segment and replaces just that copy, so
+     * readers never see a stale value.
+     */
+    public ConcurrentLRUCache<K, V> replicateHotKeys(int count) {
+        if (hotKeys == null) {
+            throw new IllegalStateException("call trackHotKeys before replicateHotKeys");
+        }
+        this.replicaSize = count;
+        return this;
+    }
+
+    /** The {@code k} most frequently accessed keys, hottest first; empty unless tracking. */
+    public List<HotKeyTracker.HotKey<K>> hotKeys(int k) {
+        return hotKeys == null ? List.of() : hotKeys.topK(k);
+    }
+
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    public V get(K key) {
+        CacheEntry<K, V> entry = lookup(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Returns the cached value, computing it with {@code loader} on a miss. Concurrent
+     * misses on the same key share a single in-flight load instead of all hitting the
+     * backend; a loader exception is rethrown to every waiting caller and nothing is
+     * cached. A {@code null} result is returned but not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        CacheEntry<K, V> entry = lookup(key);
+        if (entry == null) {
+            return load(key, loader);
+        }
+
+        V value = entry.value;
+        if (refreshAfterWriteNanos >= 0 && ticker.read() - entry.writeTime >= refreshAfterWriteNanos) {
+            refresh(key, entry, loader);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        long start = recordingStats ? System.nanoTime() : 0;
+        if (hotKeys != null) {
+            hotKeys.record(key);
+        }
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.drainReadBuffer();
+            segment.cache.doPut(key, value);
+        } finally {
+            segment.lock.unlock();
+        }
+        if (recordingStats) {
+            stats.recordPutLatency(System.nanoTime() - start);
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.drainReadBuffer();
+            segment.cache.invalidate(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the cached values for {@code keys}, omitting misses. Keys are grouped by
+     * segment first, so each segment lock is taken once and its recency updates are
+     * applied in a single pass.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        Map<K, V> result = new HashMap<>();
+        int[] bounds = new int[segments.length + 1];
+        Object[] sorted = groupBySegment(keys, key -> (K) key, bounds);
+
+        for (int s = 0; s < segments.length; s++) {
+            if (bounds[s] == bounds[s + 1]) {
+                continue;
+            }
+            Segment<K, V> segment = segments[s];
+            segment.lock.lock();
+            try {
+                segment.drainReadBuffer();
+                for (int i = bounds[s]; i < bounds[s + 1]; i++) {
+                    K key = (K) sorted[i];
+                    CacheEntry<K, V> entry = segment.cache.getEntry(key);
+                    if (entry != null) {
+                        result.put(key, entry.value);
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #getAll(Collection)}, but hands every miss to one
+     * {@code batchLoader} call and caches whatever it returns.
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys,
+                            Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> batchLoader) {
+        Map<K, V> result = getAll(keys);
+        Set<K> misses = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (!result.containsKey(key)) {
+                misses.add(key);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        long start = System.nanoTime();
+        Map<? extends K, ? extends V> loaded;
+        try {
+            loaded = batchLoader.apply(Collections.unmodifiableSet(misses));
+        } catch (RuntimeException | Error e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+        stats.recordLoadSuccess(System.nanoTime() - start);
+        for (Map.Entry<? extends K, ? extends V> entry : loaded.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            // As in load(): never overwrite a put that raced with the batch load.
+            V value = installLoaded(entry.getKey(), entry.getValue(), null, null, 0);
+            if (misses.contains(entry.getKey())) {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<? extends K, ? extends V> map) {
+        int[] bounds = new int[segments.length + 1];
+        Object[] sorted = groupBySegment(map.entrySet(), entry -> (K) ((Map.Entry<?, ?>) entry).getKey(), bounds);
+
+        for (int s = 0; s < segments.length; s++) {
+            if (bounds[s] == bounds[s + 1]) {
+                continue;
+            }
+            Segment<K, V> segment = segments[s];
+            segment.lock.lock();
+            try {
+                segment.drainReadBuffer();
+                for (int i = bounds[s]; i < bounds[s + 1]; i++) {
+                    Map.Entry<? extends K, ? extends V> entry = (Map.Entry<? extends K, ? extends V>) sorted[i];
+                    segment.cache.doPut(entry.getKey(), entry.getValue());
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void invalidateAll(Collection<? extends K> keys) {
+        int[] bounds = new int[segments.length + 1];
+        Object[] sorted = groupBySegment(keys, key -> (K) key, bounds);
+
+        for (int s = 0; s < segments.length; s++) {
+            if (bounds[s] == bounds[s + 1]) {
+                continue;
+            }
+            Segment<K, V> segment = segments[s];
+            segment.lock.lock();
+            try {
+                segment.drainReadBuffer();
+                for (int i = bounds[s]; i < bounds[s + 1]; i++) {
+                    segment.cache.invalidate((K) sorted[i]);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    // Visits each segment's entries from most to least recently used. A segment is
+    // locked only while its entry references are copied; the action runs unlocked.
+    @SuppressWarnings("unchecked")
+    void forEachMostRecentFirst(BiConsumer<? super K, ? super V> action) {
+        List<Object> copy = new ArrayList<>();
+        for (Segment<K, V> segment : segments) {
+            copy.clear();
+            segment.lock.lock();
+            try {
+                segment.drainReadBuffer();
+                segment.cache.forEachMostRecentFirst((key, value) -> {
+                    copy.add(key);
+                    copy.add(value);
+                });
+            } finally {
+                segment.lock.unlock();
+            }
+            for (int i = 0; i < copy.size(); i += 2) {
+                action.accept((K) copy.get(i), (V) copy.get(i + 1));
+            }
+        }
+    }
+
+    // Counting sort of items by segment index. On return, the items of segment s
+    // are at [bounds[s], bounds[s + 1]) of the returned array.
+    private Object[] groupBySegment(Collection<?> items, Function<Object, K> keyOf, int[] bounds) {
+        Object[] input = items.toArray();
+        int[] segmentIndexes = new int[input.length];
+        for (int i = 0; i < input.length; i++) {
+            segmentIndexes[i] = segmentIndex(keyOf.apply(input[i]));
+            bounds[segmentIndexes[i] + 1]++;
+        }
+        for (int s = 0; s < segments.length; s++) {
+            bounds[s + 1] += bounds[s];
+        }
+
+        Object[] sorted = new Object[input.length];
+        int[] next = bounds.clone();
+        for (int i = 0; i < input.length; i++) {
+            sorted[next[segmentIndexes[i]]++] = input[i];
+        }
+        return sorted;
+    }
+
+    private CacheEntry<K, V> lookup(K key) {
+        if (hotKeys != null) {
+            hotKeys.record(key);
+        }
+        if (!recordingStats) {
+            return replicaSize > 0 ? replicatedEntry(key) : getEntry(key);
+        }
+
+        long start = System.nanoTime();
+        CacheEntry<K, V> entry = replicaSize > 0 ? replicatedEntry(key) : getEntry(key);
+        stats.recordGetLatency(System.nanoTime() - start);
+        return entry;
+    }
+
+    private CacheEntry<K, V> replicatedEntry(K key) {
+        Replica<K, V> replica = replicas.get();
+        if (++replica.reads % HOT_SET_CHECK_INTERVAL == 0) {
+            refreshHotSet();
+        }
+        HotSet<K> current = hotSet.get();
+        if (replica.hotSet != current) {
+            rebuild(replica, current);
+        }
+
+        CacheEntry<K, V> entry = replica.entries.get(key);
+        if (entry != null && !entry.removed && !segmentFor(key).cache.hasExpired(entry)) {
+            stats.recordHits(1);
+            return entry;
+        }
+        // Stale or missing: read through and keep the live entry if the key is hot.
+        entry = getEntry(key);
+        if (entry != null && current.keys.contains(key)) {
+            replica.entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    private void refreshHotSet() {
+        HotSet<K> current = hotSet.get();
+        long now = ticker.read();
+        if (now - current.createdAt >= HOT_SET_REFRESH_NANOS) {
+            Set<K> keys = new HashSet<>();
+            for (HotKeyTracker.HotKey<K> hot : hotKeys.topK(replicaSize)) {
+                keys.add(hot.key());
+            }
+            hotSet.compareAndSet(current, new HotSet<>(keys, now));
+        }
+    }
+
+    // Copies the current entries of the hot keys; counts as an access so the
+    // segments keep them even though replica hits bypass the recency lists.
+    private void rebuild(Replica<K, V> replica, HotSet<K> current) {
+        Map<K, CacheEntry<K, V>> entries = new HashMap<>();
+        for (K key : current.keys) {
+            Segment<K, V> segment = segmentFor(key);
+            segment.lock.lock();
+            try {
+                CacheEntry<K, V> entry = segment.cache.getEntryQuietly(key);
+                if (entry != null && !segment.cache.hasExpired(entry)) {
+                    segment.cache.recordAccess(entry);
+                    entries.put(key, entry);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        replica.entries = entries;
+        replica.hotSet = current;
+    }
+
+    // Lookup that neither reorders nor counts as a hit or miss.
+    private CacheEntry<K, V> peekEntry(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            CacheEntry<K, V> entry = segment.cache.getEntryQuietly(key);
+            return entry == null || segment.cache.hasExpired(entry) ? null : entry;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    private CacheEntry<K, V> getEntry(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        if (bufferedReads) {
+            CacheEntry<K, V> entry = segment.cache.getEntryQuietly(key);
+            if (entry == null || segment.cache.hasExpired(entry)) {
+                stats.recordMisses(1);
+                return null;
+            }
+            stats.recordHits(1);
+            segment.afterRead(entry);
+            return entry;
+        }
+
+        segment.lock.lock();
+        try {
+            return segment.cache.getEntry(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inProgress = inFlight.putIfAbsent(key, future);
+        if (inProgress != null) {
+            return await(inProgress);
+        }
+
+        try {
+            // Another load may have completed between our miss and registering.
+            CacheEntry<K, V> entry = peekEntry(key);
+            V value = entry != null ? entry.value : loadValue(key, loader);
+            if (entry == null && value != null) {
+                // A put that landed while the loader ran is newer than what it returned.
+                value = installLoaded(key, value, null, null, 0);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void refresh(K key, CacheEntry<K, V> stale, Function<? super K, ? extends V> loader) {
+        V staleValue = stale.value;
+        long staleWriteTime = stale.writeTime;
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    V value = loadValue(key, loader);
+                    if (value != null) {
+                        value = installLoaded(key, value, stale, staleValue, staleWriteTime);
+                    }
+                    future.complete(value);
+                } catch (Throwable t) {
+                    // Keep serving the stale value; the next read retries.
+                    future.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Stores a loaded value only if the key was not written while the loader ran:
+     * it must still be absent ({@code expected == null}) or still hold the entry,
+     * value and write time the refresh started from. Otherwise the newer value wins
+     * and is returned instead.
+     */
+    private V installLoaded(K key, V value, CacheEntry<K, V> expected, V expectedValue, long expectedWriteTime) {
+        if (hotKeys != null) {
+            hotKeys.record(key);
+        }
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.drainReadBuffer();
+            CacheEntry<K, V> current = segment.cache.getEntryQuietly(key);
+            if (expected == null && current != null && segment.cache.hasExpired(current)) {
+                current = null;
+            }
+            boolean unchanged = expected == null
+                    ? current == null
+                    : current == expected && current.value == expectedValue && current.writeTime == expectedWriteTime;
+            if (!unchanged) {
+                return current != null ? current.value : value;
+            }
+            segment.cache.doPut(key, value);
+        } finally {
+            segment.lock.unlock();
+        }
+        return value;
+    }
+
+    private V loadValue(K key, Function<? super K, ? extends V> loader) {
+        long start = System.nanoTime();
+        try {
+            V value = loader.apply(key);
+            stats.recordLoadSuccess(System.nanoTime() - start);
+            return value;
+        } catch (RuntimeException | Error e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.cache.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] newSegmentArray(int length) {
+        return (Segment<K, V>[]) new Segment<?, ?>[length];
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        return segments[segmentIndex(key)];
+    }
+
+    private int segmentIndex(K key) {
+        if (segments.length == 1) {
+            return 0;
+        }
+        // Fibonacci hashing: the top bits of the product are well mixed
+        // even for keys with poor low-order hashCode bits.
+        int h = key.hashCode() * 0x9E3779B9;
+        return h >>> segmentShift;
+    }
+
+    private static final class HotSet<K> {
+        final Set<K> keys;
+        final long createdAt;
+
+        HotSet(Set<K> keys, long createdAt) {
+            this.keys = keys;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Replica<K, V> {
+        Map<K, CacheEntry<K, V>> entries = new HashMap<>();
+        HotSet<K> hotSet;
+        int reads;
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import java.util.function.Consumer;
+
+/**
+ * A doubly linked list threaded through the intrusive {@code prev}/{@code next}
+ * fields of {@link CacheEntry}, with a sentinel node so no link is ever null.
+ * Shared by the eviction policies; an entry is in at most one list at a time.
+ */
+class EntryList<K, V> {
+    private final CacheEntry<K, V> head = new CacheEntry<>(null, null);
+    private final CacheEntry<K, V> tail = new CacheEntry<>(null, null);
+    private int size;
+
+    EntryList() {
+        head.next = tail;
+        tail.prev = head;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** The most recently added or moved entry, or null if empty. */
+    CacheEntry<K, V> first() {
+        return size == 0 ? null : head.next;
+    }
+
+    /** The least recently added or moved entry, or null if empty. */
+    CacheEntry<K, V> last() {
+        return size == 0 ? null : tail.prev;
+    }
+
+    void addFirst(CacheEntry<K, V> entry) {
+        entry.next = head.next;
+        entry.prev = head;
+
+        head.next.prev = entry;
+        head.next = entry;
+        size++;
+    }
+
+    void moveToFront(CacheEntry<K, V> entry) {
+        remove(entry);
+        addFirst(entry);
+    }
+
+    void remove(CacheEntry<K, V> entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        size--;
+    }
+
+    CacheEntry<K, V> removeLast() {
+        CacheEntry<K, V> entry = last();
+        if (entry != null) {
+            remove(entry);
+        }
+        return entry;
+    }
+
+    /** Visits entries from first (most recent) to last. */
+    void forEach(Consumer<? super CacheEntry<K, V>> action) {
+        for (CacheEntry<K, V> entry = head.next; entry != tail; entry = entry.next) {
+            action.accept(entry);
+        }
+    }
+}
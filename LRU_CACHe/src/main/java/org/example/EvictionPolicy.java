@@ -0,0 +1,31 @@
+package org.example;
+
+import java.util.function.Consumer;
+
+/**
+ * Decides which entry an {@link LRUCache} evicts. The cache owns the key map, weights
+ * and expiration; the policy only orders entries, using the intrusive links of
+ * {@link CacheEntry} so every callback is O(1).
+ * <p>
+ * Implementations: {@link LruPolicy} (default), {@link WindowTinyLfuPolicy},
+ * {@link SegmentedLruPolicy}, {@link TwoQueuePolicy} and {@link ArcPolicy}.
+ */
+public interface EvictionPolicy<K, V> {
+    /** A new entry was added to the cache. */
+    void onInsert(CacheEntry<K, V> entry);
+
+    /** An existing entry was read or its value replaced. */
+    void onAccess(CacheEntry<K, V> entry);
+
+    /** An entry left the cache without being chosen by {@link #evict()} (invalidated or expired). */
+    void onRemove(CacheEntry<K, V> entry);
+
+    /**
+     * Chooses the next entry to evict and unlinks it from the policy. The cache calls
+     * this while it is over its bound; returns null only when the policy is empty.
+     */
+    CacheEntry<K, V> evict();
+
+    /** Visits resident entries from the one the policy would keep longest to the next victim. */
+    void forEachHottestFirst(Consumer<? super CacheEntry<K, V>> action);
+}
@@ -0,0 +1,147 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Finds the heaviest hitters among cache keys with the Space-Saving algorithm over a
+ * random sample of accesses. Only one access in {@code sampleRate} reaches the
+ * synchronized summary; the rest cost a thread-local random draw. The summary tracks
+ * {@code capacity} keys in an indexed min-heap: a sampled key that is not tracked
+ * replaces the least frequent one and inherits its count as the error bound, so any
+ * key with more than {@code 1/capacity} of the sampled traffic is always reported.
+ */
+public class HotKeyTracker<K> {
+    private final int sampleRate;
+    private final Object[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<K, Integer> positions = new HashMap<>();
+    private int size;
+
+    public HotKeyTracker(int capacity, int sampleRate) {
+        if (capacity <= 0 || sampleRate <= 0) {
+            throw new IllegalArgumentException("capacity and sampleRate must be positive");
+        }
+        this.sampleRate = sampleRate;
+        this.keys = new Object[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+    }
+
+    public void record(K key) {
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            recordSampled(key);
+        }
+    }
+
+    /** The {@code k} most frequent keys, hottest first, with counts scaled to all accesses. */
+    @SuppressWarnings("unchecked")
+    public synchronized List<HotKey<K>> topK(int k) {
+        List<HotKey<K>> hottest = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hottest.add(new HotKey<>((K) keys[i], counts[i] * sampleRate, errors[i] * sampleRate));
+        }
+        hottest.sort((a, b) -> Long.compare(b.estimatedCount, a.estimatedCount));
+        return hottest.subList(0, Math.min(k, hottest.size()));
+    }
+
+    private synchronized void recordSampled(K key) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position]++;
+            siftDown(position);
+            return;
+        }
+
+        if (size < keys.length) {
+            place(size, key, 1, 0);
+            siftUp(size++);
+            return;
+        }
+        // Replace the minimum; its count becomes the newcomer's overestimate.
+        positions.remove(keys[0]);
+        long minimum = counts[0];
+        place(0, key, minimum + 1, minimum);
+        siftDown(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void place(int index, Object key, long count, long error) {
+        keys[index] = key;
+        counts[index] = count;
+        errors[index] = error;
+        positions.put((K) key, index);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (counts[parent] <= counts[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Object key = keys[a];
+        long count = counts[a];
+        long error = errors[a];
+        place(a, keys[b], counts[b], errors[b]);
+        place(b, key, count, error);
+    }
+
+    /** A tracked key; the true count lies in {@code [estimatedCount - error, estimatedCount]}. */
+    public static final class HotKey<K> {
+        private final K key;
+        private final long estimatedCount;
+        private final long error;
+
+        HotKey(K key, long estimatedCount, long error) {
+            this.key = key;
+            this.estimatedCount = estimatedCount;
+            this.error = error;
+        }
+
+        public K key() {
+            return key;
+        }
+
+        public long estimatedCount() {
+            return estimatedCount;
+        }
+
+        public long error() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + estimatedCount + " (error " + error + ")";
+        }
+    }
+}
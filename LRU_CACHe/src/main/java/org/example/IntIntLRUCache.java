@@ -0,0 +1,151 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * An LRU cache from {@code int} to {@code int} with no per-entry objects and no boxing.
+ * Same layout as {@link LongObjectLRUCache}: open-addressed {@code int[]} keys, an
+ * {@code int[]} of values and {@code int[]} prev/next indices for the recency list.
+ */
+public class IntIntLRUCache {
+    private static final int FREE = -1;
+
+    private final int capacity;
+    private final int mask;
+    private final int sentinel;
+
+    private final int[] keys;
+    private final int[] values;
+    private final int[] prev;
+    private final int[] next;
+    private int size;
+
+    public IntIntLRUCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+
+        int tableSize = Integer.highestOneBit((int) Math.min(1L << 30, capacity * 4L / 3 + 1) * 2 - 1);
+        if (tableSize <= capacity) {
+            throw new IllegalArgumentException("capacity too large: " + capacity);
+        }
+        this.mask = tableSize - 1;
+        this.sentinel = tableSize;
+
+        this.keys = new int[tableSize];
+        this.values = new int[tableSize];
+        this.prev = new int[tableSize + 1];
+        this.next = new int[tableSize + 1];
+        Arrays.fill(prev, FREE);
+        prev[sentinel] = sentinel;
+        next[sentinel] = sentinel;
+    }
+
+    /** Returns the cached value, or {@code missingValue} if the key is absent. */
+    public int get(int key, int missingValue) {
+        int slot = find(key);
+        if (slot < 0) {
+            return missingValue;
+        }
+        moveToFront(slot);
+        return values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public void put(int key, int value) {
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            moveToFront(slot);
+            return;
+        }
+
+        if (size == capacity) {
+            evictLeastRecentlyUsed();
+            slot = find(key);
+        }
+
+        slot = ~slot;
+        keys[slot] = key;
+        values[slot] = value;
+        addToFront(slot);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int find(int key) {
+        int slot = hash(key) & mask;
+        while (prev[slot] != FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        int lru = prev[sentinel];
+        removeNode(lru);
+        deleteSlot(lru);
+        size--;
+    }
+
+    private void deleteSlot(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (prev[slot] == FREE) {
+                break;
+            }
+            int home = hash(keys[slot]) & mask;
+            boolean movable = hole <= slot
+                    ? (home <= hole || home > slot)
+                    : (home <= hole && home > slot);
+            if (movable) {
+                moveSlot(slot, hole);
+                hole = slot;
+            }
+        }
+        prev[hole] = FREE;
+    }
+
+    private void moveSlot(int from, int to) {
+        keys[to] = keys[from];
+        values[to] = values[from];
+        prev[to] = prev[from];
+        next[to] = next[from];
+        next[prev[to]] = to;
+        prev[next[to]] = to;
+    }
+
+    private void moveToFront(int slot) {
+        removeNode(slot);
+        addToFront(slot);
+    }
+
+    private void removeNode(int slot) {
+        next[prev[slot]] = next[slot];
+        prev[next[slot]] = prev[slot];
+    }
+
+    private void addToFront(int slot) {
+        next[slot] = next[sentinel];
+        prev[slot] = sentinel;
+
+        prev[next[sentinel]] = slot;
+        next[sentinel] = slot;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
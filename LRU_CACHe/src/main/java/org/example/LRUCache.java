@@ -1,74 +1,435 @@
 package org.example;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 public class LRUCache<K, V> {
-    private final int capacity;
+    private final long maximumWeight;
+    private final Weigher<K, V> weigher;
     private final Map<K, CacheEntry<K, V>> cache;
+    private long totalWeight;
 
-    private CacheEntry<K, V> head;
-    private CacheEntry<K, V> tail;
+    private final EvictionPolicy<K, V> policy;
+
+    // Expiration (timerWheel is null until a TTL is configured).
+    private Ticker ticker = Ticker.system();
+    private long expireAfterWriteNanos = -1;
+    private long expireAfterAccessNanos = -1;
+    private TimerWheel<K, V> timerWheel;
+    private boolean recordWriteTime;
+
+    private StatsCounter stats = StatsCounter.disabled();
+    private boolean recordingStats;
+
+    private RemovalDispatcher<K, V> removalDispatcher;
+    private WriteBehindBuffer<K, V> writeBehind;
+    private HotKeyTracker<K> hotKeys;
 
     public LRUCache(int capacity) {
-        this.capacity = capacity;
-        this.cache = new HashMap<>();
-        head = new CacheEntry<>(null, null);
-        tail = new CacheEntry<>(null, null);
-        head.next = tail;
-        tail.prev = head;
+        this(capacity, new LruPolicy<>());
+    }
+
+    /**
+     * With {@code frequencyAdmission}, a one-off scan of cold keys can no longer
+     * flush the hot working set; shorthand for a {@link WindowTinyLfuPolicy}.
+     */
+    public LRUCache(int capacity, boolean frequencyAdmission) {
+        this(capacity, frequencyAdmission ? new WindowTinyLfuPolicy<>(capacity) : new LruPolicy<>());
+    }
+
+    /** Evicts the entry chosen by {@code policy} whenever {@code capacity} is exceeded. */
+    public LRUCache(int capacity, EvictionPolicy<K, V> policy) {
+        this(capacity, Weigher.singleton(), policy, new HashMap<>());
+    }
+
+    /**
+     * Bounds the cache by the sum of entry weights instead of the entry count.
+     * Least recently used entries are evicted until the total is back under
+     * {@code maximumWeight}, including after an update makes an entry heavier.
+     */
+    public LRUCache(long maximumWeight, Weigher<K, V> weigher) {
+        this(maximumWeight, weigher, new LruPolicy<>());
+    }
+
+    /**
+     * Weight-bounded cache whose victims are chosen by {@code policy}. Policies
+     * size their internal regions in entries, so weigh entries roughly evenly.
+     */
+    public LRUCache(long maximumWeight, Weigher<K, V> weigher, EvictionPolicy<K, V> policy) {
+        this(maximumWeight, weigher, policy, new HashMap<>());
+    }
+
+    LRUCache(int capacity, EvictionPolicy<K, V> policy, Map<K, CacheEntry<K, V>> cache) {
+        this(capacity, Weigher.singleton(), policy, cache);
+    }
+
+    LRUCache(long maximumWeight, Weigher<K, V> weigher, EvictionPolicy<K, V> policy,
+             Map<K, CacheEntry<K, V>> cache) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.cache = cache;
+        this.policy = policy;
+    }
+
+    /**
+     * Expires each entry once {@code duration} has passed since it was created or
+     * its value was last replaced. Configure before the cache is used.
+     */
+    public LRUCache<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+        this.expireAfterWriteNanos = unit.toNanos(duration);
+        enableExpiration();
+        return this;
+    }
+
+    /**
+     * Expires each entry once {@code duration} has passed since it was last read
+     * or written. Configure before the cache is used.
+     */
+    public LRUCache<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+        this.expireAfterAccessNanos = unit.toNanos(duration);
+        enableExpiration();
+        return this;
+    }
+
+    public LRUCache<K, V> ticker(Ticker ticker) {
+        if (!cache.isEmpty()) {
+            throw new IllegalStateException("ticker must be set before the cache is used");
+        }
+        this.ticker = ticker;
+        if (timerWheel != null) {
+            timerWheel = new TimerWheel<>(ticker.read(), this::expire);
+        }
+        return this;
+    }
+
+    /** Records statistics into a new {@link ConcurrentStatsCounter}. */
+    public LRUCache<K, V> recordStats() {
+        return recordStats(new ConcurrentStatsCounter());
+    }
+
+    /** Records statistics into {@code counter}, which may be shared between caches. */
+    public LRUCache<K, V> recordStats(StatsCounter counter) {
+        this.stats = counter;
+        this.recordingStats = counter != StatsCounter.disabled();
+        return this;
+    }
+
+    /** Delivers removal notifications asynchronously on the common pool. */
+    public LRUCache<K, V> removalListener(RemovalListener<K, V> listener) {
+        return removalListener(listener, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reports every removed entry to {@code listener}. The writer only enqueues the
+     * notification; {@code executor} runs the listener, so cleanup such as closing
+     * handles never adds to {@code put} latency.
+     */
+    public LRUCache<K, V> removalListener(RemovalListener<K, V> listener, Executor executor) {
+        this.removalDispatcher = new RemovalDispatcher<>(listener, executor);
+        return this;
+    }
+
+    // Lets the segments of a ConcurrentLRUCache feed one shared queue.
+    void removalDispatcher(RemovalDispatcher<K, V> dispatcher) {
+        this.removalDispatcher = dispatcher;
+    }
+
+    /**
+     * Turns {@code put} into a buffered write: the value is cached immediately and
+     * handed to {@code writer} later from a background thread. Updates to the same key
+     * coalesce, and dirty keys are written in batches of up to {@code batchSize},
+     * at least every {@code maxDelay}. A dirty entry that is evicted or expired is
+     * still written, and {@code get} keeps returning its value until then so readers
+     * never see the store's older copy. {@link #invalidate} only drops the cached
+     * entry: a pending write is still made, right away. If writes pile up because the
+     * store is slow or failing, {@code put} of a new key waits for room and retries back
+     * off. Call {@link #close()} to write what is left and stop the background thread;
+     * writes and flushes after that throw {@link IllegalStateException}.
+     */
+    public LRUCache<K, V> writeBehind(CacheWriter<K, V> writer, int batchSize, long maxDelay, TimeUnit unit) {
+        this.writeBehind = new WriteBehindBuffer<>(writer, batchSize, unit.toNanos(maxDelay));
+        return this;
+    }
+
+    /** Writes all dirty entries and waits for the writer; a no-op without write-behind. */
+    public void flush() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    /**
+     * Writes all dirty entries and stops the write-behind thread; a no-op without
+     * write-behind. Later puts and flushes throw {@link IllegalStateException}.
+     */
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
+
+    /**
+     * Samples one in {@code sampleRate} gets and puts into a {@link HotKeyTracker}
+     * that keeps the {@code capacity} most frequent keys; see {@link #hotKeys(int)}.
+     */
+    public LRUCache<K, V> trackHotKeys(int capacity, int sampleRate) {
+        this.hotKeys = new HotKeyTracker<>(capacity, sampleRate);
+        return this;
+    }
+
+    /** The {@code k} most frequently accessed keys, hottest first; empty unless tracking. */
+    public List<HotKeyTracker.HotKey<K>> hotKeys(int k) {
+        return hotKeys == null ? List.of() : hotKeys.topK(k);
+    }
+
+    public CacheStats stats() {
+        return stats.snapshot();
     }
 
     public V get(K key) {
-        CacheEntry<K, V> entry = cache.get(key);
-        if (entry == null) {
-            return null;
+        if (hotKeys != null) {
+            hotKeys.record(key);
+        }
+        if (!recordingStats) {
+            return valueOf(key, getEntry(key));
         }
-        moveToFront(entry);
-        return entry.value;
+
+        long start = System.nanoTime();
+        CacheEntry<K, V> entry = getEntry(key);
+        stats.recordGetLatency(System.nanoTime() - start);
+        return valueOf(key, entry);
+    }
+
+    public void put(K key, V value) {
+        if (hotKeys != null) {
+            hotKeys.record(key);
+        }
+        if (!recordingStats) {
+            doPut(key, value);
+            return;
+        }
+
+        long start = System.nanoTime();
+        doPut(key, value);
+        stats.recordPutLatency(System.nanoTime() - start);
     }
 
-    public void put(K key, V value){
+    // put() without latency tracking, for callers that time the operation themselves.
+    void doPut(K key, V value) {
+        long now = 0;
+        if (timerWheel != null) {
+            now = ticker.read();
+            timerWheel.advance(now);
+        } else if (recordWriteTime) {
+            now = ticker.read();
+        }
+
+        int weight = weigh(key, value);
+        stats.recordPuts(1);
+        if (writeBehind != null) {
+            writeBehind.markDirty(key, value);
+        }
         CacheEntry<K, V> entry = cache.get(key);
         if (entry != null) {
+            V oldValue = entry.value;
             entry.value = value;
-            moveToFront(entry);
+            entry.writeTime = now;
+            adjustWeight(entry, weight - entry.weight);
+            onAccess(entry, now);
+            if (oldValue != value) {
+                notifyRemoval(key, oldValue, RemovalCause.REPLACED);
+            }
+            evictEntries();
             return;
         }
 
-        if(capacity == cache.size()){
-            evictLeastRecentlyUsed();
-        }
-
         CacheEntry<K, V> newEntry = new CacheEntry<>(key, value);
+        newEntry.writeTime = now;
         cache.put(key, newEntry);
-        addToFront(newEntry);
+        policy.onInsert(newEntry);
+        adjustWeight(newEntry, weight);
+        updateExpiration(newEntry, now);
+        evictEntries();
+    }
+
+    public void invalidate(K key) {
+        CacheEntry<K, V> entry = cache.get(key);
+        if (entry != null) {
+            policy.onRemove(entry);
+            removeEntry(entry);
+            notifyRemoval(entry.key, entry.value, RemovalCause.EXPLICIT);
+        }
+    }
+
+    /** Reclaims expired entries; normally this happens as a side effect of get/put. */
+    public void cleanUp() {
+        if (timerWheel != null) {
+            timerWheel.advance(ticker.read());
+        }
+    }
+
+    // get() that exposes the entry, e.g. so callers can inspect its write time.
+    CacheEntry<K, V> getEntry(K key) {
+        long now = 0;
+        if (timerWheel != null) {
+            now = ticker.read();
+            timerWheel.advance(now);
+        }
+
+        CacheEntry<K, V> entry = cache.get(key);
+        if (entry == null) {
+            stats.recordMisses(1);
+            return null;
+        }
+        if (timerWheel != null && entry.expirationTime - now <= 0) {
+            expire(entry);
+            stats.recordMisses(1);
+            return null;
+        }
+        stats.recordHits(1);
+        onAccess(entry, now);
+        return entry;
+    }
+
+    // Visits live entries in the policy's retention order, the next victim last.
+    void forEachMostRecentFirst(BiConsumer<? super K, ? super V> action) {
+        long now = timerWheel != null ? ticker.read() : 0;
+        policy.forEachHottestFirst(entry -> {
+            if (timerWheel == null || entry.expirationTime - now > 0) {
+                action.accept(entry.key, entry.value);
+            }
+        });
+    }
+
+    // Stamps CacheEntry.writeTime from the ticker even without expiration.
+    void recordWriteTime() {
+        this.recordWriteTime = true;
+    }
+
+    // Lookup without touching the recency list; safe to call concurrently
+    // with writers only when the backing map is a ConcurrentHashMap.
+    CacheEntry<K, V> getEntryQuietly(K key) {
+        return cache.get(key);
     }
 
-    private void evictLeastRecentlyUsed() {
-        CacheEntry<K, V> lru = tail.prev;
-        cache.remove(lru.key);
-        removeNode(lru);
+    // Applies a recency update recorded earlier; ignores entries that were
+    // evicted or replaced in the meantime.
+    void recordAccess(CacheEntry<K, V> entry) {
+        if (cache.get(entry.key) == entry) {
+            onAccess(entry, expireAfterAccessNanos >= 0 ? ticker.read() : 0);
+        }
     }
 
+    // For lock-free readers that bypass get().
+    boolean hasExpired(CacheEntry<K, V> entry) {
+        return timerWheel != null && entry.expirationTime - ticker.read() <= 0;
+    }
 
-    private void moveToFront(CacheEntry<K, V> entry) {
-        removeNode(entry);
-        addToFront(entry);
+    public int size() {
+        return cache.size();
     }
 
-    private void removeNode(CacheEntry<K,V> entry) {
-        entry.prev.next = entry.next;
-        entry.next.prev = entry.prev;
+    public long weightedSize() {
+        return totalWeight;
     }
 
-    private void addToFront(CacheEntry<K, V> entry) {
-        entry.next = head.next;
-        entry.prev = head;
+    // A miss may still have a write in flight; its value is newer than the store's.
+    private V valueOf(K key, CacheEntry<K, V> entry) {
+        if (entry != null) {
+            return entry.value;
+        }
+        return writeBehind == null ? null : writeBehind.pending(key);
+    }
 
-        head.next.prev = entry;
-        head.next = entry;
+    private int weigh(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("negative weight for key " + key);
+        }
+        return weight;
     }
 
+    private void adjustWeight(CacheEntry<K, V> entry, int delta) {
+        entry.weight += delta;
+        totalWeight += delta;
+    }
 
+    private void onAccess(CacheEntry<K, V> entry, long now) {
+        policy.onAccess(entry);
+        updateExpiration(entry, now);
+    }
+
+    private void enableExpiration() {
+        if (timerWheel == null) {
+            if (!cache.isEmpty()) {
+                throw new IllegalStateException("expiration must be configured before the cache is used");
+            }
+            timerWheel = new TimerWheel<>(ticker.read(), this::expire);
+        }
+    }
+
+    private void updateExpiration(CacheEntry<K, V> entry, long now) {
+        if (timerWheel == null) {
+            return;
+        }
+        long expirationTime = Long.MAX_VALUE;
+        if (expireAfterWriteNanos >= 0) {
+            expirationTime = entry.writeTime + expireAfterWriteNanos;
+        }
+        if (expireAfterAccessNanos >= 0) {
+            long accessExpiration = now + expireAfterAccessNanos;
+            if (expireAfterWriteNanos < 0 || accessExpiration - expirationTime < 0) {
+                expirationTime = accessExpiration;
+            }
+        }
+        entry.expirationTime = expirationTime;
+        timerWheel.reschedule(entry);
+    }
+
+    private void evictEntries() {
+        while (totalWeight > maximumWeight) {
+            CacheEntry<K, V> victim = policy.evict();
+            if (victim == null) {
+                break;
+            }
+            removeEntry(victim);
+            stats.recordEviction(victim.weight);
+            notifyRemoval(victim.key, victim.value, RemovalCause.SIZE);
+        }
+    }
+
+    private void expire(CacheEntry<K, V> entry) {
+        policy.onRemove(entry);
+        removeEntry(entry);
+        stats.recordEviction(entry.weight);
+        notifyRemoval(entry.key, entry.value, RemovalCause.EXPIRED);
+    }
+
+    private void notifyRemoval(K key, V value, RemovalCause cause) {
+        if (removalDispatcher != null) {
+            removalDispatcher.publish(key, value, cause);
+        }
+    }
+
+    // Drops the entry from the map, timer wheel and weight total; the caller
+    // has already unlinked it from the policy.
+    private void removeEntry(CacheEntry<K, V> entry) {
+        cache.remove(entry.key);
+        entry.removed = true;
+        if (timerWheel != null) {
+            timerWheel.deschedule(entry);
+        }
+        totalWeight -= entry.weight;
+        if (writeBehind != null) {
+            writeBehind.onRemoval(entry.key);
+        }
+    }
 }
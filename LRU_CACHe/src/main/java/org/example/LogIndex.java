@@ -0,0 +1,123 @@
+package org.example;
+
+/**
+ * Open-addressed {@code long -> long} map from a 64-bit key hash to a record location,
+ * about 16 bytes per key with no per-entry objects. Keys are only known by their hash:
+ * two keys that collide share a slot and the later write wins, which for a cache just
+ * turns the older key into a miss.
+ */
+class LogIndex {
+    static final long ABSENT = -1;
+
+    private long[] hashes;
+    private long[] locations;
+    private int mask;
+    private int size;
+
+    LogIndex() {
+        allocate(1 << 10);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return hashes.length;
+    }
+
+    /** Returns the hash stored in {@code slot}, or 0 if the slot is empty. */
+    long hashAt(int slot) {
+        return hashes[slot];
+    }
+
+    long locationAt(int slot) {
+        return locations[slot];
+    }
+
+    long get(long hash) {
+        hash = normalize(hash);
+        for (int slot = slotFor(hash); hashes[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash) {
+                return locations[slot];
+            }
+        }
+        return ABSENT;
+    }
+
+    /** Returns the previous location of {@code hash}, or {@link #ABSENT}. */
+    long put(long hash, long location) {
+        hash = normalize(hash);
+        int slot = slotFor(hash);
+        for (; hashes[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash) {
+                long previous = locations[slot];
+                locations[slot] = location;
+                return previous;
+            }
+        }
+        hashes[slot] = hash;
+        locations[slot] = location;
+        if (++size > (mask + 1) * 3 / 4) {
+            resize();
+        }
+        return ABSENT;
+    }
+
+    /** Returns the removed location, or {@link #ABSENT}. */
+    long remove(long hash) {
+        hash = normalize(hash);
+        int slot = slotFor(hash);
+        for (; hashes[slot] != hash; slot = (slot + 1) & mask) {
+            if (hashes[slot] == 0) {
+                return ABSENT;
+            }
+        }
+        long removed = locations[slot];
+        size--;
+
+        // Backward-shift deletion: pull later entries of the probe run into the gap.
+        int gap = slot;
+        for (int next = (gap + 1) & mask; hashes[next] != 0; next = (next + 1) & mask) {
+            int home = slotFor(hashes[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                hashes[gap] = hashes[next];
+                locations[gap] = locations[next];
+                gap = next;
+            }
+        }
+        hashes[gap] = 0;
+        return removed;
+    }
+
+    private int slotFor(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // 0 marks an empty slot.
+    private static long normalize(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    private void allocate(int capacity) {
+        hashes = new long[capacity];
+        locations = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize() {
+        long[] oldHashes = hashes;
+        long[] oldLocations = locations;
+        allocate(oldHashes.length * 2);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) {
+                int slot = slotFor(oldHashes[i]);
+                while (hashes[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[i];
+                locations[slot] = oldLocations[i];
+            }
+        }
+    }
+}
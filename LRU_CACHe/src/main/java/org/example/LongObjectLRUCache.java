@@ -0,0 +1,158 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * An LRU cache specialised for primitive {@code long} keys. Entries live in parallel
+ * arrays instead of {@code CacheEntry} objects: an open-addressed (linear probing)
+ * {@code long[]} of keys, an {@code Object[]} of values and {@code int[]} prev/next
+ * indices forming the recency list. {@code get} and {@code put} allocate nothing.
+ */
+public class LongObjectLRUCache<V> {
+    private static final int FREE = -1;
+
+    private final int capacity;
+    private final int mask;
+    private final int sentinel;
+
+    private final long[] keys;
+    private final Object[] values;
+    private final int[] prev;
+    private final int[] next;
+    private int size;
+
+    public LongObjectLRUCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+
+        // Keep the load factor at or below 0.75 so probe chains stay short.
+        int tableSize = Integer.highestOneBit((int) Math.min(1L << 30, capacity * 4L / 3 + 1) * 2 - 1);
+        if (tableSize <= capacity) {
+            throw new IllegalArgumentException("capacity too large: " + capacity);
+        }
+        this.mask = tableSize - 1;
+        this.sentinel = tableSize;
+
+        this.keys = new long[tableSize];
+        this.values = new Object[tableSize];
+        this.prev = new int[tableSize + 1];
+        this.next = new int[tableSize + 1];
+        Arrays.fill(prev, FREE);
+        prev[sentinel] = sentinel;
+        next[sentinel] = sentinel;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        moveToFront(slot);
+        return (V) values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    public void put(long key, V value) {
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            moveToFront(slot);
+            return;
+        }
+
+        if (size == capacity) {
+            evictLeastRecentlyUsed();
+            // Deletion may have shifted entries, so the probe must be redone.
+            slot = find(key);
+        }
+
+        slot = ~slot;
+        keys[slot] = key;
+        values[slot] = value;
+        addToFront(slot);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns the slot holding key, or ~(free slot where it would go).
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        while (prev[slot] != FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        int lru = prev[sentinel];
+        removeNode(lru);
+        deleteSlot(lru);
+        size--;
+    }
+
+    // Backward-shift deletion: pull later members of the probe chain into the
+    // hole so lookups never need tombstones.
+    private void deleteSlot(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (prev[slot] == FREE) {
+                break;
+            }
+            int home = hash(keys[slot]) & mask;
+            boolean movable = hole <= slot
+                    ? (home <= hole || home > slot)
+                    : (home <= hole && home > slot);
+            if (movable) {
+                moveSlot(slot, hole);
+                hole = slot;
+            }
+        }
+        prev[hole] = FREE;
+        values[hole] = null;
+    }
+
+    private void moveSlot(int from, int to) {
+        keys[to] = keys[from];
+        values[to] = values[from];
+        prev[to] = prev[from];
+        next[to] = next[from];
+        next[prev[to]] = to;
+        prev[next[to]] = to;
+    }
+
+    private void moveToFront(int slot) {
+        removeNode(slot);
+        addToFront(slot);
+    }
+
+    private void removeNode(int slot) {
+        next[prev[slot]] = next[slot];
+        prev[next[slot]] = prev[slot];
+    }
+
+    private void addToFront(int slot) {
+        next[slot] = next[sentinel];
+        prev[slot] = sentinel;
+
+        prev[next[sentinel]] = slot;
+        next[sentinel] = slot;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,33 @@
+package org.example;
+
+import java.util.function.Consumer;
+
+/** Classic LRU: every access moves the entry to the front; the tail is evicted. */
+public class LruPolicy<K, V> implements EvictionPolicy<K, V> {
+    private final EntryList<K, V> list = new EntryList<>();
+
+    @Override
+    public void onInsert(CacheEntry<K, V> entry) {
+        list.addFirst(entry);
+    }
+
+    @Override
+    public void onAccess(CacheEntry<K, V> entry) {
+        list.moveToFront(entry);
+    }
+
+    @Override
+    public void onRemove(CacheEntry<K, V> entry) {
+        list.remove(entry);
+    }
+
+    @Override
+    public CacheEntry<K, V> evict() {
+        return list.removeLast();
+    }
+
+    @Override
+    public void forEachHottestFirst(Consumer<? super CacheEntry<K, V>> action) {
+        list.forEach(action);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example;
+
+/**
+ * Open-addressed (linear probing) map from object keys to primitive {@code long}
+ * values. Keys live in an {@code Object[]} and values in a parallel {@code long[]},
+ * so an entry costs two array slots instead of a {@code HashMap} node and a boxed
+ * {@code Long}. Removal uses backward-shift deletion, so lookups never meet
+ * tombstones. Null keys are not supported.
+ */
+class ObjectLongHashMap<K> {
+    static final long MISSING = -1;
+    private static final int INITIAL_TABLE_SIZE = 16;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    private Object[] keys = new Object[INITIAL_TABLE_SIZE];
+    private long[] values = new long[INITIAL_TABLE_SIZE];
+    private int mask = INITIAL_TABLE_SIZE - 1;
+    private int size;
+
+    /** The value mapped to {@code key}, or {@link #MISSING}. */
+    long get(K key) {
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : MISSING;
+    }
+
+    void put(K key, long value) {
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        // Keep the load factor at or below 0.75 so probe chains stay short.
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize();
+            slot = find(key);
+        }
+        slot = ~slot;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /** Removes {@code key} and returns its value, or {@link #MISSING}. */
+    long remove(K key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return MISSING;
+        }
+        long value = values[slot];
+        deleteSlot(slot);
+        size--;
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Returns the slot holding key, or ~(free slot where it would go).
+    private int find(Object key) {
+        int slot = hash(key) & mask;
+        Object candidate;
+        while ((candidate = keys[slot]) != null) {
+            if (candidate.equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    // Backward-shift deletion, as in LongObjectLRUCache.
+    private void deleteSlot(int hole) {
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (keys[slot] == null) {
+                break;
+            }
+            int home = hash(keys[slot]) & mask;
+            boolean movable = hole <= slot
+                    ? (home <= hole || home > slot)
+                    : (home <= hole && home > slot);
+            if (movable) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = null;
+    }
+
+    private void resize() {
+        if (keys.length == MAX_TABLE_SIZE) {
+            throw new IllegalStateException("map is full: " + size + " keys");
+        }
+        Object[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new Object[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = ~find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // The table is indexed by the low bits, so fold the well-mixed high bits of the
+    // Fibonacci product into them.
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
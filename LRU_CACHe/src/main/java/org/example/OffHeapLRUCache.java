@@ -0,0 +1,160 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A byte-bounded cache for serialized payloads that keeps values outside the Java
+ * heap. Memory is handed out in fixed-size direct {@code ByteBuffer} pages; each page
+ * belongs to one {@link SlabClass} whose chunks grow by a factor of 1.25, and each
+ * slab class keeps its own LRU list. On the heap there are the keys, an
+ * {@link ObjectLongHashMap} from key to a {@code long} handle, and per chunk two
+ * {@code int} links and a {@code long} last-use stamp; no object per entry.
+ * <p>
+ * Once the byte budget is spent, the class whose least recently used value is the
+ * oldest pays for a new value: with that value if it is the value's own class, and
+ * otherwise with a page, which moves to the class that needs it. So the pages follow
+ * the sizes being written, and every value that fits a page can be stored.
+ * <p>
+ * Like {@link LRUCache}, this class is not thread-safe.
+ */
+public class OffHeapLRUCache<K> {
+    public static final int DEFAULT_PAGE_SIZE = 1 << 20;
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final double GROWTH_FACTOR = 1.25;
+
+    private final int pageSize;
+    private final long maxPages;
+    private long allocatedPages;
+
+    private final List<SlabClass<K>> slabClasses = new ArrayList<>();
+    private final ObjectLongHashMap<K> index = new ObjectLongHashMap<>();
+    private long clock; // logical time of the last get or put
+
+    public OffHeapLRUCache(long capacityBytes) {
+        this(capacityBytes, DEFAULT_PAGE_SIZE);
+    }
+
+    public OffHeapLRUCache(long capacityBytes, int pageSize) {
+        if (capacityBytes <= 0 || pageSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("capacityBytes must be positive and pageSize at least " + MIN_CHUNK_SIZE);
+        }
+        this.pageSize = (int) Math.min(pageSize, capacityBytes);
+        this.maxPages = Math.max(1, capacityBytes / this.pageSize);
+
+        int chunkSize = MIN_CHUNK_SIZE;
+        while (chunkSize < this.pageSize) {
+            slabClasses.add(new SlabClass<>(chunkSize, this.pageSize));
+            chunkSize = Math.min(this.pageSize, ((int) (chunkSize * GROWTH_FACTOR) + 7) & ~7);
+        }
+        slabClasses.add(new SlabClass<>(this.pageSize, this.pageSize));
+    }
+
+    public byte[] get(K key) {
+        long handle = index.get(key);
+        if (handle == ObjectLongHashMap.MISSING) {
+            return null;
+        }
+        SlabClass<K> slab = slabClasses.get(slabIndex(handle));
+        slab.touch(chunk(handle), ++clock);
+        return slab.read(chunk(handle));
+    }
+
+    public void put(K key, byte[] value) {
+        int slabIndex = slabIndexFor(value.length);
+        SlabClass<K> slab = slabClasses.get(slabIndex);
+
+        long handle = index.get(key);
+        if (handle != ObjectLongHashMap.MISSING) {
+            if (slabIndex(handle) == slabIndex) {
+                slab.write(chunk(handle), value);
+                slab.touch(chunk(handle), ++clock);
+                return;
+            }
+            // The value changed size class: release the old chunk.
+            slabClasses.get(slabIndex(handle)).free(chunk(handle));
+            index.remove(key);
+        }
+
+        int chunk = allocate(slabIndex);
+        slab.store(chunk, key, value, ++clock);
+        index.put(key, handle(slabIndex, chunk));
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /** Off-heap bytes reserved so far; never exceeds the configured capacity. */
+    public long allocatedBytes() {
+        return allocatedPages * pageSize;
+    }
+
+    // A free chunk of the class. Once the budget is spent, the class holding the
+    // oldest value gives up that value, or its last page if it is another class.
+    private int allocate(int slabIndex) {
+        SlabClass<K> slab = slabClasses.get(slabIndex);
+        int chunk = slab.allocate();
+        if (chunk != 0) {
+            return chunk;
+        }
+        if (allocatedPages < maxPages) {
+            slab.addPage(ByteBuffer.allocateDirect(pageSize));
+            allocatedPages++;
+            return slab.allocate();
+        }
+
+        int donor = oldestSlabClass();
+        if (donor == slabIndex) {
+            index.remove(slab.evictLeastRecentlyUsed());
+        } else {
+            slab.addPage(slabClasses.get(donor).releaseLastPage(
+                    index::remove, (key, moved) -> index.put(key, handle(donor, moved))));
+        }
+        return slab.allocate();
+    }
+
+    // Among the classes holding pages, the one whose least recently used value is oldest.
+    private int oldestSlabClass() {
+        int oldest = -1;
+        long oldestStamp = Long.MAX_VALUE;
+        for (int i = 0; i < slabClasses.size(); i++) {
+            SlabClass<K> slab = slabClasses.get(i);
+            if (slab.pageCount() > 0 && (oldest < 0 || slab.oldestStamp() < oldestStamp)) {
+                oldest = i;
+                oldestStamp = slab.oldestStamp();
+            }
+        }
+        return oldest;
+    }
+
+    private int slabIndexFor(int valueLength) {
+        int low = 0;
+        int high = slabClasses.size() - 1;
+        if (valueLength > SlabClass.maxValueLength(slabClasses.get(high).chunkSize)) {
+            throw new IllegalArgumentException("value of " + valueLength + " bytes exceeds the page size");
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (SlabClass.maxValueLength(slabClasses.get(mid).chunkSize) >= valueLength) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static long handle(int slabIndex, int chunk) {
+        return ((long) slabIndex << 32) | chunk;
+    }
+
+    private static int slabIndex(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    private static int chunk(long handle) {
+        return (int) handle;
+    }
+}
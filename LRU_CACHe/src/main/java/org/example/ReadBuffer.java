@@ -0,0 +1,87 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy, striped ring buffers used to record cache hits without taking a lock.
+ * Each thread hashes onto one stripe; when a stripe is full the access is simply
+ * dropped, which only makes the recency order slightly less precise.
+ */
+class ReadBuffer<E> {
+    static final int STRIPE_SIZE = 16;
+    private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+    private static final int DRAIN_THRESHOLD = STRIPE_SIZE / 2;
+
+    private final Stripe<E>[] stripes;
+    private final int stripeMask;
+
+    ReadBuffer() {
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+        this.stripes = newStripeArray(stripeCount);
+        this.stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>();
+        }
+    }
+
+    /**
+     * Records an element. Returns true when the caller's stripe is filling up
+     * and a drain should be attempted.
+     */
+    boolean offer(E element) {
+        long threadId = Thread.currentThread().getId();
+        int index = (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+        return stripes[index].offer(element);
+    }
+
+    /** Drains every stripe. Callers must serialize drains (e.g. hold the segment lock). */
+    void drainTo(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            stripe.drainTo(consumer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Stripe<E>[] newStripeArray(int length) {
+        return (Stripe<E>[]) new Stripe<?>[length];
+    }
+
+    private static final class Stripe<E> {
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(STRIPE_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        boolean offer(E element) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            long size = tail - head;
+            if (size >= STRIPE_SIZE) {
+                return true;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & STRIPE_MASK), element);
+                return size + 1 >= DRAIN_THRESHOLD;
+            }
+            // Lost a race with another writer on this stripe: drop the access.
+            return false;
+        }
+
+        void drainTo(Consumer<E> consumer) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & STRIPE_MASK);
+                E element = buffer.get(index);
+                if (element == null) {
+                    // Slot claimed but not yet published; pick it up next drain.
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(element);
+            }
+            readCounter = head;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example;
+
+/** Why an entry left the cache, as reported to a {@link RemovalListener}. */
+public enum RemovalCause {
+    /** Removed by {@code invalidate}. */
+    EXPLICIT,
+    /** The value was overwritten by a {@code put} for the same key. */
+    REPLACED,
+    /** The entry's expire-after-write or expire-after-access deadline passed. */
+    EXPIRED,
+    /** Evicted because the cache exceeded its maximum size or weight. */
+    SIZE
+}
@@ -0,0 +1,161 @@
+package org.example;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Moves removal notifications off the writing thread. Writers (one per segment lock)
+ * append to a bounded multi-producer/single-consumer ring buffer and, if no delivery
+ * task is pending, submit one to the executor. The task drains the ring in batches
+ * and calls the listener, so at most one thread consumes at a time.
+ * <p>
+ * Writers publish while holding a segment lock, so they never wait for the
+ * consumer: a listener that writes back into the cache would block on that lock
+ * and never free space. When the ring is full, notifications go to an unbounded
+ * overflow queue instead, and keep going there until the consumer has emptied it,
+ * so none is lost and each writer's notifications stay in order.
+ */
+class RemovalDispatcher<K, V> {
+    private static final int CAPACITY = 1 << 12;
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH_SIZE = 256;
+    private static final System.Logger LOGGER = System.getLogger(RemovalDispatcher.class.getName());
+
+    private final RemovalListener<K, V> listener;
+    private final Executor executor;
+    private final AtomicReferenceArray<Notification<K, V>> buffer = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong writeCounter = new AtomicLong();
+    private volatile long readCounter;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<Notification<K, V>> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    RemovalDispatcher(RemovalListener<K, V> listener, Executor executor) {
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    void publish(K key, V value, RemovalCause cause) {
+        Notification<K, V> notification = new Notification<>(key, value, cause);
+        if (!overflow.isEmpty()) {
+            spill(notification); // Stay behind what already overflowed.
+            return;
+        }
+        long tail;
+        do {
+            tail = writeCounter.get();
+            if (tail - readCounter >= CAPACITY) {
+                // Full: the listener is falling behind. Waiting here could deadlock with
+                // a listener that needs the caller's lock, so queue without a bound.
+                if (overflowed.get() == 0) {
+                    LOGGER.log(System.Logger.Level.WARNING,
+                            "removal listener is falling behind; queueing notifications unbounded");
+                }
+                spill(notification);
+                return;
+            }
+        } while (!writeCounter.compareAndSet(tail, tail + 1));
+        buffer.lazySet((int) (tail & MASK), notification);
+        scheduleDrain();
+    }
+
+    /** Number of notifications that did not fit the ring and went to the overflow queue. */
+    long overflowCount() {
+        return overflowed.get();
+    }
+
+    private void spill(Notification<K, V> notification) {
+        overflowed.incrementAndGet();
+        overflow.add(notification);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                // Leave the notifications queued; the next publish tries again.
+                scheduled.set(false);
+                LOGGER.log(System.Logger.Level.WARNING, "could not schedule removal notification delivery", e);
+            }
+        }
+    }
+
+    private void drain() {
+        Notification<K, V>[] batch = newBatch();
+        do {
+            try {
+                // The ring first: everything in it was published before the overflow.
+                int count;
+                while ((count = poll(batch)) > 0 || (count = pollOverflow(batch)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        Notification<K, V> notification = batch[i];
+                        batch[i] = null;
+                        deliver(notification);
+                    }
+                }
+            } finally {
+                // Even after an Error from the listener, the next publish schedules a drain.
+                scheduled.set(false);
+            }
+            // A writer may have published after the last poll but seen the flag still set.
+        } while ((readCounter != writeCounter.get() || !overflow.isEmpty()) && scheduled.compareAndSet(false, true));
+    }
+
+    private int pollOverflow(Notification<K, V>[] batch) {
+        int count = 0;
+        Notification<K, V> notification;
+        while (count < batch.length && (notification = overflow.poll()) != null) {
+            batch[count++] = notification;
+        }
+        return count;
+    }
+
+    private int poll(Notification<K, V>[] batch) {
+        long head = readCounter;
+        int count = 0;
+        while (count < batch.length) {
+            int index = (int) (head & MASK);
+            Notification<K, V> notification = buffer.get(index);
+            if (notification == null) {
+                // Empty, or a slot claimed but not yet published; pick it up next round.
+                break;
+            }
+            buffer.lazySet(index, null);
+            batch[count++] = notification;
+            head++;
+        }
+        readCounter = head;
+        return count;
+    }
+
+    private void deliver(Notification<K, V> n) {
+        try {
+            listener.onRemoval(n.key, n.value, n.cause);
+        } catch (RuntimeException e) {
+            // One failing notification must not stop the ones behind it.
+            LOGGER.log(System.Logger.Level.WARNING, "removal listener threw for key " + n.key, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Notification<K, V>[] newBatch() {
+        return (Notification<K, V>[]) new Notification<?, ?>[BATCH_SIZE];
+    }
+
+    private static final class Notification<K, V> {
+        final K key;
+        final V value;
+        final RemovalCause cause;
+
+        Notification(K key, V value, RemovalCause cause) {
+            this.key = key;
+            this.value = value;
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example;
+
+/**
+ * Receives entries removed from a cache. Notifications are queued by the writer and
+ * delivered later on the listener's executor, one batch per task, in removal order;
+ * the listener is never called concurrently with itself.
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+    void onRemoval(K key, V value, RemovalCause cause);
+}
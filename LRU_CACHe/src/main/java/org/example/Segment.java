@@ -0,0 +1,36 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+class Segment<K, V> {
+    final ReentrantLock lock = new ReentrantLock();
+    final LRUCache<K, V> cache;
+    final ReadBuffer<CacheEntry<K, V>> readBuffer;
+
+    Segment(int capacity, EvictionPolicy<K, V> policy, boolean bufferedReads) {
+        // A concurrent map lets buffered readers look entries up without the lock;
+        // without them every access holds the lock and a plain map is enough.
+        this.cache = new LRUCache<>(capacity, policy, bufferedReads ? new ConcurrentHashMap<>() : new HashMap<>());
+        this.readBuffer = bufferedReads ? new ReadBuffer<>() : null;
+    }
+
+    void afterRead(CacheEntry<K, V> entry) {
+        if (readBuffer.offer(entry) && lock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Caller must hold the lock.
+    void drainReadBuffer() {
+        if (readBuffer != null) {
+            readBuffer.drainTo(cache::recordAccess);
+            cache.cleanUp();
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Disk tier of {@link TieredCache}: an append-only log split into fixed-size segment
+ * files, each memory-mapped for both appends and reads. A {@link LogIndex} maps the
+ * 64-bit hash of every live key to {@code segmentId << 32 | offset}; overwritten and
+ * removed records stay in place as garbage until {@link #compact()} copies a mostly
+ * dead segment's live records forward and deletes the file. When the log is full the
+ * oldest segment is dropped whole, which makes the disk tier FIFO. Dropping does not
+ * scan the segment: index entries that still point into it are forgotten when a lookup
+ * next meets them, or by the background sweep that follows compaction.
+ * <p>
+ * Record layout: {@code int keyLength, int valueLength, key bytes, value bytes}.
+ * The index is not persisted, so segment files left in the directory by an earlier
+ * log are deleted on open; other files in the directory are left alone.
+ */
+class SegmentLog implements Closeable {
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    private static final String SUFFIX = ".log";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("\\d{10}\\.log");
+    private static final int SWEEP_SLOTS = 4096;
+    private static final System.Logger LOGGER = System.getLogger(SegmentLog.class.getName());
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final TreeMap<Integer, LogSegment> segments = new TreeMap<>();
+    private final LogIndex index = new LogIndex();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ToLongFunction<byte[]> hasher;
+    private LogSegment active;
+    private int nextSegmentId;
+    private int staleRecords; // index entries still pointing into dropped segments
+    private boolean closed;
+
+    SegmentLog(Path directory, int segmentBytes, int maxSegments) throws IOException {
+        this(directory, segmentBytes, maxSegments, SegmentLog::hash);
+    }
+
+    SegmentLog(Path directory, int segmentBytes, int maxSegments, ToLongFunction<byte[]> hasher) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.hasher = hasher;
+        Files.createDirectories(directory);
+        DirectoryStream.Filter<Path> ours = file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches();
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, ours)) {
+            for (Path file : stale) {
+                Files.delete(file);
+            }
+        }
+        this.active = openSegment();
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return index.size() - staleRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the value stored for {@code key}, or null. */
+    byte[] get(byte[] key) {
+        lock.lock();
+        try {
+            ensureOpen();
+            long location = locate(hasher.applyAsLong(key));
+            return location == LogIndex.ABSENT ? null : readValue(location, key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes {@code key} and returns the value it had, or null. */
+    byte[] take(byte[] key) {
+        lock.lock();
+        try {
+            ensureOpen();
+            long hash = hasher.applyAsLong(key);
+            long location = locate(hash);
+            if (location == LogIndex.ABSENT) {
+                return null;
+            }
+            byte[] value = readValue(location, key);
+            if (value != null) {
+                index.remove(hash);
+                release(location);
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(byte[] key, byte[] value) throws IOException {
+        if (RECORD_HEADER + key.length + value.length > segmentBytes) {
+            return; // Larger than a segment; not worth keeping on disk.
+        }
+        lock.lock();
+        try {
+            ensureOpen();
+            append(hasher.applyAsLong(key), key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(byte[] key) {
+        lock.lock();
+        try {
+            ensureOpen();
+            long location = index.remove(hasher.applyAsLong(key));
+            if (location != LogIndex.ABSENT) {
+                release(location);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites sealed segments that are less than half live, then forgets index entries
+     * of dropped segments. The lock is taken per record or per block of index slots, so
+     * readers and writers interleave with a long compaction.
+     */
+    void compact() throws IOException {
+        List<LogSegment> candidates = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            for (LogSegment segment : segments.values()) {
+                if (segment != active && segment.liveBytes < segment.writePosition * COMPACTION_THRESHOLD) {
+                    candidates.add(segment);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (LogSegment segment : candidates) {
+            int offset = 0;
+            while (true) {
+                lock.lock();
+                try {
+                    if (closed || segments.get(segment.id) != segment) {
+                        break; // Closed, or dropped as the oldest segment meanwhile.
+                    }
+                    if (offset >= segment.writePosition) {
+                        deleteSegment(segment);
+                        break;
+                    }
+                    int keyLength = segment.buffer.getInt(offset);
+                    int valueLength = segment.buffer.getInt(offset + Integer.BYTES);
+                    byte[] key = new byte[keyLength];
+                    segment.buffer.get(offset + RECORD_HEADER, key);
+                    long hash = hasher.applyAsLong(key);
+                    if (index.get(hash) == location(segment.id, offset)) {
+                        byte[] value = new byte[valueLength];
+                        segment.buffer.get(offset + RECORD_HEADER + keyLength, value);
+                        append(hash, key, value);
+                    }
+                    offset += RECORD_HEADER + keyLength + valueLength;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        sweepStale();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (LogSegment segment : new ArrayList<>(segments.values())) {
+                deleteSegment(segment);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Removal shifts the next entry of a probe run into the freed slot, so a slot is
+    // checked again after each removal. Entries moved by a resize between blocks may be
+    // missed until the next sweep, which is harmless.
+    private void sweepStale() {
+        for (int from = 0; ; from += SWEEP_SLOTS) {
+            lock.lock();
+            try {
+                if (closed || staleRecords == 0 || from >= index.capacity()) {
+                    return;
+                }
+                int to = Math.min(from + SWEEP_SLOTS, index.capacity());
+                for (int slot = from; slot < to; slot++) {
+                    while (index.hashAt(slot) != 0 && !segments.containsKey(segmentId(index.locationAt(slot)))) {
+                        index.remove(index.hashAt(slot));
+                        staleRecords--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Caller holds the lock.
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("segment log is closed");
+        }
+    }
+
+    // Caller holds the lock. Returns where hash's record lives, forgetting the entry
+    // if its segment has been dropped.
+    private long locate(long hash) {
+        long location = index.get(hash);
+        if (location != LogIndex.ABSENT && !segments.containsKey(segmentId(location))) {
+            index.remove(hash);
+            staleRecords--;
+            return LogIndex.ABSENT;
+        }
+        return location;
+    }
+
+    // Caller holds the lock.
+    private void append(long hash, byte[] key, byte[] value) throws IOException {
+        int recordBytes = RECORD_HEADER + key.length + value.length;
+        if (segmentBytes - active.writePosition < recordBytes) {
+            active = openSegment();
+            while (segments.size() > maxSegments) {
+                dropSegment(segments.firstEntry().getValue());
+            }
+        }
+
+        int offset = active.writePosition;
+        active.buffer.putInt(offset, key.length);
+        active.buffer.putInt(offset + Integer.BYTES, value.length);
+        active.buffer.put(offset + RECORD_HEADER, key);
+        active.buffer.put(offset + RECORD_HEADER + key.length, value);
+        active.writePosition += recordBytes;
+        active.liveBytes += recordBytes;
+        active.liveRecords++;
+
+        long previous = index.put(hash, location(active.id, offset));
+        if (previous != LogIndex.ABSENT) {
+            release(previous);
+        }
+    }
+
+    // Reads the value at location, or null if the record belongs to a colliding key.
+    private byte[] readValue(long location, byte[] key) {
+        LogSegment segment = segments.get(segmentId(location));
+        int offset = (int) location;
+        int keyLength = segment.buffer.getInt(offset);
+        int valueLength = segment.buffer.getInt(offset + Integer.BYTES);
+        if (keyLength != key.length) {
+            return null;
+        }
+        byte[] storedKey = new byte[keyLength];
+        segment.buffer.get(offset + RECORD_HEADER, storedKey);
+        if (!Arrays.equals(storedKey, key)) {
+            return null;
+        }
+        byte[] value = new byte[valueLength];
+        segment.buffer.get(offset + RECORD_HEADER + keyLength, value);
+        return value;
+    }
+
+    // Marks the record at location as garbage.
+    private void release(long location) {
+        LogSegment segment = segments.get(segmentId(location));
+        if (segment == null) {
+            staleRecords--; // Its segment was dropped; nothing left to account.
+            return;
+        }
+        int offset = (int) location;
+        segment.liveBytes -= RECORD_HEADER + segment.buffer.getInt(offset)
+                + segment.buffer.getInt(offset + Integer.BYTES);
+        segment.liveRecords--;
+    }
+
+    // Deletes the segment without reading it; its index entries become stale.
+    private void dropSegment(LogSegment segment) throws IOException {
+        staleRecords += segment.liveRecords;
+        deleteSegment(segment);
+    }
+
+    // Caller holds the lock, which every buffer access does too, so no reader can
+    // touch the mapping once it is released.
+    private void deleteSegment(LogSegment segment) throws IOException {
+        segments.remove(segment.id);
+        segment.channel.close();
+        unmap(segment.buffer);
+        Files.deleteIfExists(segment.file);
+    }
+
+    // Closing the channel does not release a mapping; without this the address space
+    // and, on some platforms, the deleted file stay in use until the GC finds the buffer.
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            LOGGER.log(System.Logger.Level.WARNING, "could not unmap a dropped segment", e);
+        }
+    }
+
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.DEBUG, "cannot unmap segments; the GC will release them", e);
+            return null;
+        }
+    }
+
+    private LogSegment openSegment() throws IOException {
+        int id = nextSegmentId++;
+        Path file = directory.resolve(String.format("%010d%s", id, SUFFIX));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        LogSegment segment = new LogSegment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private static long location(int segmentId, int offset) {
+        return (long) segmentId << 32 | offset;
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    // FNV-1a with a murmur finalizer, so similar keys spread over the whole table.
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h = (h ^ b) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class LogSegment {
+        final int id;
+        final Path file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        int liveBytes;
+        int liveRecords;
+
+        LogSegment(int id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
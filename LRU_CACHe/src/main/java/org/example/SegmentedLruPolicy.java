@@ -0,0 +1,61 @@
+package org.example;
+
+import java.util.function.Consumer;
+
+/**
+ * Segmented LRU: new entries start in a probationary segment; a second access
+ * promotes them to a protected segment (80% of capacity). Overflow from the
+ * protected segment is demoted back to probation, and victims always come from
+ * probation first, so entries seen only once cannot push out proven ones.
+ */
+public class SegmentedLruPolicy<K, V> implements EvictionPolicy<K, V> {
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int protectedMaximum;
+    private final EntryList<K, V> probation = new EntryList<>();
+    private final EntryList<K, V> protectedList = new EntryList<>();
+
+    public SegmentedLruPolicy(int capacity) {
+        this.protectedMaximum = Math.max(1, (int) (capacity * 0.8));
+    }
+
+    @Override
+    public void onInsert(CacheEntry<K, V> entry) {
+        entry.queue = PROBATION;
+        probation.addFirst(entry);
+    }
+
+    @Override
+    public void onAccess(CacheEntry<K, V> entry) {
+        if (entry.queue == PROTECTED) {
+            protectedList.moveToFront(entry);
+            return;
+        }
+
+        probation.remove(entry);
+        entry.queue = PROTECTED;
+        protectedList.addFirst(entry);
+        if (protectedList.size() > protectedMaximum) {
+            CacheEntry<K, V> demoted = protectedList.removeLast();
+            demoted.queue = PROBATION;
+            probation.addFirst(demoted);
+        }
+    }
+
+    @Override
+    public void onRemove(CacheEntry<K, V> entry) {
+        (entry.queue == PROTECTED ? protectedList : probation).remove(entry);
+    }
+
+    @Override
+    public CacheEntry<K, V> evict() {
+        return probation.isEmpty() ? protectedList.removeLast() : probation.removeLast();
+    }
+
+    @Override
+    public void forEachHottestFirst(Consumer<? super CacheEntry<K, V>> action) {
+        protectedList.forEach(action);
+        probation.forEach(action);
+    }
+}
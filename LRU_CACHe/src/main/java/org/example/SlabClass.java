@@ -0,0 +1,207 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * All chunks of one size in an {@link OffHeapLRUCache}. Chunks are carved out of
+ * direct {@code ByteBuffer} pages and addressed by a 1-based chunk id; id 0 is the
+ * sentinel of the recency list, which is kept in {@code int[]} prev/next arrays so
+ * that no per-entry objects exist on the heap besides the key. Each chunk also
+ * records the logical time of its last use, so the cache can compare the least
+ * recently used values of different classes.
+ */
+class SlabClass<K> {
+    private static final int HEADER_BYTES = Integer.BYTES;
+
+    final int chunkSize;
+    private final int chunksPerPage;
+    private final List<ByteBuffer> pages = new ArrayList<>();
+
+    private Object[] keys = new Object[1];
+    private int[] prev = new int[1];
+    private int[] next = new int[1];
+    private long[] stamps = new long[1];
+    private int freeHead;
+    private int nextUnused = 1;
+    private int size;
+
+    SlabClass(int chunkSize, int pageSize) {
+        this.chunkSize = chunkSize;
+        this.chunksPerPage = pageSize / chunkSize;
+    }
+
+    static int maxValueLength(int chunkSize) {
+        return chunkSize - HEADER_BYTES;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int pageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Last-use time of the least recently used value: {@code Long.MIN_VALUE} if the
+     * class has pages but no values, {@code Long.MAX_VALUE} if it has no pages.
+     */
+    long oldestStamp() {
+        if (pages.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        return size == 0 ? Long.MIN_VALUE : stamps[prev[0]];
+    }
+
+    void addPage(ByteBuffer page) {
+        pages.add(page);
+        resizeChunkArrays(pages.size() * chunksPerPage + 1);
+    }
+
+    /**
+     * Gives up the last page so that another class can use it. Least recently used
+     * values are evicted until the values stored in that page fit into the free
+     * chunks of the other pages; those are then moved there, keeping their place in
+     * the recency list. Evicted keys are reported to {@code onEvict}, moved keys
+     * with their new chunk id to {@code onMove}.
+     */
+    ByteBuffer releaseLastPage(Consumer<K> onEvict, ObjIntConsumer<K> onMove) {
+        int kept = (pages.size() - 1) * chunksPerPage; // chunk ids 1..kept stay
+        while (size > kept) {
+            onEvict.accept(evictLeastRecentlyUsed());
+        }
+
+        // Free chunks of the released page must not be handed out again.
+        int firstReleased = kept + 1;
+        int lastUsed = nextUnused - 1;
+        nextUnused = Math.min(nextUnused, firstReleased);
+        freeHead = 0;
+        for (int chunk = nextUnused - 1; chunk >= 1; chunk--) {
+            if (keys[chunk] == null) {
+                next[chunk] = freeHead;
+                freeHead = chunk;
+            }
+        }
+        for (int chunk = firstReleased; chunk <= lastUsed; chunk++) {
+            if (keys[chunk] != null) {
+                int target = allocate();
+                move(chunk, target);
+                @SuppressWarnings("unchecked")
+                K key = (K) keys[target];
+                onMove.accept(key, target);
+            }
+        }
+
+        ByteBuffer page = pages.remove(pages.size() - 1);
+        resizeChunkArrays(firstReleased);
+        return page;
+    }
+
+    /** Returns a free chunk id, or 0 when every chunk of every page is in use. */
+    int allocate() {
+        if (freeHead != 0) {
+            int chunk = freeHead;
+            freeHead = next[chunk];
+            return chunk;
+        }
+        if (nextUnused < keys.length) {
+            return nextUnused++;
+        }
+        return 0;
+    }
+
+    void store(int chunk, K key, byte[] value, long stamp) {
+        write(chunk, value);
+        keys[chunk] = key;
+        stamps[chunk] = stamp;
+        addToFront(chunk);
+        size++;
+    }
+
+    void write(int chunk, byte[] value) {
+        ByteBuffer page = pageOf(chunk);
+        int offset = offsetOf(chunk);
+        page.putInt(offset, value.length);
+        page.put(offset + HEADER_BYTES, value);
+    }
+
+    byte[] read(int chunk) {
+        ByteBuffer page = pageOf(chunk);
+        int offset = offsetOf(chunk);
+        byte[] value = new byte[page.getInt(offset)];
+        page.get(offset + HEADER_BYTES, value);
+        return value;
+    }
+
+    void touch(int chunk, long stamp) {
+        stamps[chunk] = stamp;
+        removeNode(chunk);
+        addToFront(chunk);
+    }
+
+    void free(int chunk) {
+        removeNode(chunk);
+        keys[chunk] = null;
+        next[chunk] = freeHead;
+        freeHead = chunk;
+        size--;
+    }
+
+    /** Frees the least recently used chunk of this class and returns its key. */
+    @SuppressWarnings("unchecked")
+    K evictLeastRecentlyUsed() {
+        int lru = prev[0];
+        K key = (K) keys[lru];
+        free(lru);
+        return key;
+    }
+
+    // Copies a value to a free chunk, which takes over its key, stamp and list position.
+    private void move(int from, int to) {
+        ByteBuffer source = pageOf(from);
+        int sourceOffset = offsetOf(from);
+        int length = HEADER_BYTES + source.getInt(sourceOffset);
+        pageOf(to).put(offsetOf(to), source, sourceOffset, length);
+
+        keys[to] = keys[from];
+        stamps[to] = stamps[from];
+        prev[to] = prev[from];
+        next[to] = next[from];
+        next[prev[to]] = to;
+        prev[next[to]] = to;
+        keys[from] = null;
+    }
+
+    private ByteBuffer pageOf(int chunk) {
+        return pages.get((chunk - 1) / chunksPerPage);
+    }
+
+    private int offsetOf(int chunk) {
+        return ((chunk - 1) % chunksPerPage) * chunkSize;
+    }
+
+    private void resizeChunkArrays(int chunkCount) {
+        keys = Arrays.copyOf(keys, chunkCount);
+        prev = Arrays.copyOf(prev, chunkCount);
+        next = Arrays.copyOf(next, chunkCount);
+        stamps = Arrays.copyOf(stamps, chunkCount);
+    }
+
+    private void removeNode(int chunk) {
+        next[prev[chunk]] = next[chunk];
+        prev[next[chunk]] = prev[chunk];
+    }
+
+    private void addToFront(int chunk) {
+        next[chunk] = next[0];
+        prev[chunk] = 0;
+
+        prev[next[0]] = chunk;
+        next[0] = chunk;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example;
+
+/**
+ * Receives cache events. The {@link #disabled()} instance ignores everything, so a
+ * cache that does not record statistics pays nothing but an empty call.
+ */
+public interface StatsCounter {
+    void recordHits(int count);
+
+    void recordMisses(int count);
+
+    void recordPuts(int count);
+
+    void recordEviction(int weight);
+
+    void recordLoadSuccess(long loadTimeNanos);
+
+    void recordLoadFailure(long loadTimeNanos);
+
+    void recordGetLatency(long nanos);
+
+    void recordPutLatency(long nanos);
+
+    CacheStats snapshot();
+
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+}
+
+enum DisabledStatsCounter implements StatsCounter {
+    INSTANCE;
+
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0,
+            new long[LatencyHistogram.BUCKET_COUNT], new long[LatencyHistogram.BUCKET_COUNT]);
+
+    @Override
+    public void recordHits(int count) {
+    }
+
+    @Override
+    public void recordMisses(int count) {
+    }
+
+    @Override
+    public void recordPuts(int count) {
+    }
+
+    @Override
+    public void recordEviction(int weight) {
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTimeNanos) {
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTimeNanos) {
+    }
+
+    @Override
+    public void recordGetLatency(long nanos) {
+    }
+
+    @Override
+    public void recordPutLatency(long nanos) {
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return EMPTY;
+    }
+}
@@ -0,0 +1,11 @@
+package org.example;
+
+/** A nanosecond time source; replaceable so expiration can be driven manually. */
+@FunctionalInterface
+public interface Ticker {
+    long read();
+
+    static Ticker system() {
+        return System::nanoTime;
+    }
+}
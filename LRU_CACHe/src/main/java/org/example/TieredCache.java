@@ -0,0 +1,166 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Two-level cache for working sets larger than the heap. L1 is an {@link LRUCache};
+ * entries it evicts for size are encoded and demoted to an L2 {@link SegmentLog} on
+ * local disk. A get that misses L1 promotes the entry from L2 (removing the disk copy)
+ * before falling back to the loader, so the long tail is served at SSD speed instead
+ * of a backend round trip. A background thread compacts the log.
+ * <p>
+ * Operations are serialized on the cache; the log has its own lock so compaction runs
+ * alongside them.
+ */
+public class TieredCache<K, V> implements Closeable {
+    private static final int MAX_SEGMENT_BYTES = 64 << 20;
+    private static final int MIN_SEGMENT_BYTES = 1 << 20;
+    private static final System.Logger LOGGER = System.getLogger(TieredCache.class.getName());
+
+    private final LRUCache<K, V> l1;
+    private final SegmentLog l2;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final ScheduledExecutorService compactor;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory      where the L2 segment files live; segment files an earlier cache
+     *                       left there are discarded, other files are not touched
+     * @param l2MaximumBytes disk budget for L2, split into segment files of up to 64 MB
+     */
+    public TieredCache(int l1Capacity, Path directory, long l2MaximumBytes,
+                       Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        int segmentBytes = (int) Math.max(MIN_SEGMENT_BYTES, Math.min(MAX_SEGMENT_BYTES, l2MaximumBytes / 8));
+        int maxSegments = (int) Math.max(2, l2MaximumBytes / segmentBytes);
+        this.l2 = new SegmentLog(directory, segmentBytes, maxSegments);
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        // Demote synchronously: the disk copy must exist before the next get can miss.
+        this.l1 = new LRUCache<K, V>(l1Capacity).removalListener(this::demote, Runnable::run);
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tiered-cache-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /** Returns the value from L1, else promotes it from L2, else null. */
+    public synchronized V get(K key) {
+        V value = l1.get(key);
+        if (value != null) {
+            return value;
+        }
+        byte[] bytes = l2.take(keyCodec.encode(key));
+        if (bytes == null) {
+            return null;
+        }
+        value = valueCodec.decode(bytes);
+        l1.put(key, value);
+        return value;
+    }
+
+    /**
+     * Like {@link #get(Object)}, but calls {@code loader} when neither tier has the key
+     * and caches its result. The loader runs without holding the cache's lock, and
+     * concurrent misses on the same key share one load.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inProgress = inFlight.putIfAbsent(key, future);
+        if (inProgress != null) {
+            return ConcurrentLRUCache.await(inProgress);
+        }
+
+        try {
+            // Another load may have completed between our miss and registering.
+            value = get(key);
+            if (value == null) {
+                value = loader.apply(key);
+                if (value != null) {
+                    value = installLoaded(key, value);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    // A put that landed while the loader ran is newer than what it returned.
+    private synchronized V installLoaded(K key, V loaded) {
+        V current = get(key);
+        if (current != null) {
+            return current;
+        }
+        l1.put(key, loaded);
+        return loaded;
+    }
+
+    public synchronized void put(K key, V value) {
+        // A stale disk copy would otherwise be promoted once the new value is evicted.
+        if (l2.size() > 0) {
+            l2.remove(keyCodec.encode(key));
+        }
+        l1.put(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        l1.invalidate(key);
+        l2.remove(keyCodec.encode(key));
+    }
+
+    public synchronized int l1Size() {
+        return l1.size();
+    }
+
+    public int l2Size() {
+        return l2.size();
+    }
+
+    /** Stops compaction and deletes the L2 segment files; later L2 access throws {@link IllegalStateException}. */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        l2.close();
+    }
+
+    private void demote(K key, V value, RemovalCause cause) {
+        if (cause != RemovalCause.SIZE) {
+            return;
+        }
+        try {
+            l2.put(keyCodec.encode(key), valueCodec.encode(value));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void compact() {
+        try {
+            l2.compact();
+        } catch (IOException e) {
+            // Leave the garbage for the next run rather than cancelling the schedule.
+            LOGGER.log(System.Logger.Level.WARNING, "L2 compaction failed", e);
+        }
+    }
+}
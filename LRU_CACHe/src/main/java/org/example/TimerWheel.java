@@ -0,0 +1,138 @@
+package org.example;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel that tracks when cache entries expire. Each level
+ * is an array of buckets covering a power-of-two time span (about 1s, 1m, 1h, 1d
+ * and a catch-all); an entry is linked into the bucket for its expiration time
+ * through the intrusive {@code prevInTimer}/{@code nextInTimer} fields of
+ * {@link CacheEntry}, so scheduling and cancelling are O(1).
+ * <p>
+ * {@link #advance(long)} only visits the buckets whose time slot has passed since
+ * the previous call. Entries found there are either expired and handed to the
+ * expirer, or re-scheduled into a finer level (cascading), so the cost of
+ * reclamation is amortized over normal operations instead of scanning the cache.
+ */
+class TimerWheel<K, V> {
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+            1L << 30, // ~1.07s
+            1L << 36, // ~1.14m
+            1L << 42, // ~1.22h
+            1L << 46, // ~0.81d
+            1L << 50, // ~13d
+    };
+    private static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    private final CacheEntry<K, V>[][] wheel;
+    private final Consumer<CacheEntry<K, V>> expirer;
+    private long nanos;
+
+    TimerWheel(long nanos, Consumer<CacheEntry<K, V>> expirer) {
+        this.nanos = nanos;
+        this.expirer = expirer;
+        this.wheel = newWheel();
+        for (int i = 0; i < BUCKETS.length; i++) {
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                CacheEntry<K, V> sentinel = new CacheEntry<>(null, null);
+                sentinel.prevInTimer = sentinel;
+                sentinel.nextInTimer = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    /** Expires every entry whose time has come, cascading the rest to finer buckets. */
+    void advance(long currentTimeNanos) {
+        long previousTimeNanos = nanos;
+        nanos = currentTimeNanos;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousTimeNanos >>> SHIFT[i];
+            long currentTicks = currentTimeNanos >>> SHIFT[i];
+            if (currentTicks - previousTicks <= 0L) {
+                break;
+            }
+            expire(i, previousTicks, currentTicks);
+        }
+    }
+
+    void schedule(CacheEntry<K, V> entry) {
+        CacheEntry<K, V> sentinel = findBucket(entry.expirationTime);
+        entry.nextInTimer = sentinel;
+        entry.prevInTimer = sentinel.prevInTimer;
+        sentinel.prevInTimer.nextInTimer = entry;
+        sentinel.prevInTimer = entry;
+    }
+
+    void reschedule(CacheEntry<K, V> entry) {
+        deschedule(entry);
+        schedule(entry);
+    }
+
+    void deschedule(CacheEntry<K, V> entry) {
+        if (entry.nextInTimer == null) {
+            return;
+        }
+        entry.prevInTimer.nextInTimer = entry.nextInTimer;
+        entry.nextInTimer.prevInTimer = entry.prevInTimer;
+        entry.prevInTimer = null;
+        entry.nextInTimer = null;
+    }
+
+    private void expire(int level, long previousTicks, long currentTicks) {
+        CacheEntry<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1 + (currentTicks - previousTicks), buckets.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+
+        for (int i = start; i < end; i++) {
+            CacheEntry<K, V> sentinel = buckets[i & mask];
+            CacheEntry<K, V> entry = sentinel.nextInTimer;
+            sentinel.prevInTimer = sentinel;
+            sentinel.nextInTimer = sentinel;
+
+            while (entry != sentinel) {
+                CacheEntry<K, V> next = entry.nextInTimer;
+                entry.prevInTimer = null;
+                entry.nextInTimer = null;
+
+                if (entry.expirationTime - nanos <= 0) {
+                    expirer.accept(entry);
+                } else {
+                    schedule(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    private CacheEntry<K, V> findBucket(long time) {
+        long duration = time - nanos;
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> CacheEntry<K, V>[][] newWheel() {
+        CacheEntry<K, V>[][] wheel = (CacheEntry<K, V>[][]) new CacheEntry<?, ?>[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = (CacheEntry<K, V>[]) new CacheEntry<?, ?>[BUCKETS[i]];
+        }
+        return wheel;
+    }
+}
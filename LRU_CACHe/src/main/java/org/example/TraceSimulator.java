@@ -0,0 +1,184 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Replays a key-access trace against {@link LRUCache} with each {@link EvictionPolicy}
+ * at several capacities and prints a hit-ratio-vs-capacity table.
+ * <p>
+ * The trace is a flat file of 8-byte big-endian keys, one per access, memory-mapped
+ * in 1 GB regions so multi-GB traces are read straight from the page cache. Every
+ * (policy, capacity) pair is simulated by its own task on a pool with one thread per
+ * core. With {@code --sample R}, SHARDS spatial sampling keeps only keys whose hash
+ * falls below {@code R}, and each cache is shrunk to {@code R * capacity}: the
+ * miniature caches see a representative slice of the key space, so the whole curve
+ * costs about {@code R} of a full replay per point. The SHARDS-adj correction keeps
+ * the estimate stable when a hot key is, or is not, in the sample.
+ * <pre>
+ * java org.example.TraceSimulator trace.bin [--sizes 1000,10000,100000]
+ *      [--policies lru,wtlfu,slru,2q,arc] [--sample 0.01]
+ * </pre>
+ */
+public final class TraceSimulator {
+    private static final long REGION_BYTES = 1L << 30;
+    private static final int SAMPLE_MODULUS = 1 << 24;
+
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private final long accesses;
+    private final double sampleRate;
+    private final int sampleThreshold;
+
+    TraceSimulator(Path trace, double sampleRate) throws IOException {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sample rate must be in (0, 1]");
+        }
+        try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % Long.BYTES;
+            for (long position = 0; position < size; position += REGION_BYTES) {
+                regions.add(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_BYTES, size - position)));
+            }
+            this.accesses = size / Long.BYTES;
+        }
+        this.sampleRate = sampleRate;
+        this.sampleThreshold = (int) Math.round(sampleRate * SAMPLE_MODULUS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: TraceSimulator <trace> [--sizes n,n,...] [--policies lru,wtlfu,slru,2q,arc] [--sample rate]");
+            System.exit(1);
+        }
+        String sizes = "1000,10000,100000";
+        String policies = "lru,wtlfu,slru,2q,arc";
+        double sampleRate = 1.0;
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("option " + args[i] + " needs a value");
+            }
+            switch (args[i]) {
+                case "--sizes" -> sizes = args[i + 1];
+                case "--policies" -> policies = args[i + 1];
+                case "--sample" -> sampleRate = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        TraceSimulator simulator = new TraceSimulator(Path.of(args[0]), sampleRate);
+        List<Integer> capacities = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            capacities.add(Integer.parseInt(size.trim()));
+        }
+        Map<String, IntFunction<EvictionPolicy<Long, Boolean>>> factories = new LinkedHashMap<>();
+        for (String name : policies.split(",")) {
+            factories.put(name.trim(), policy(name.trim()));
+        }
+
+        System.out.printf("%s: %,d accesses, sample rate %s%n", args[0], simulator.accesses, sampleRate);
+        simulator.print(capacities, factories, simulator.run(capacities, factories));
+    }
+
+    /** Hit ratios indexed by [capacity][policy], in the order given. */
+    double[][] run(List<Integer> capacities, Map<String, IntFunction<EvictionPolicy<Long, Boolean>>> factories)
+            throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<List<Future<Double>>> futures = new ArrayList<>();
+            for (int capacity : capacities) {
+                List<Future<Double>> row = new ArrayList<>();
+                for (IntFunction<EvictionPolicy<Long, Boolean>> factory : factories.values()) {
+                    row.add(pool.submit(() -> simulate(capacity, factory)));
+                }
+                futures.add(row);
+            }
+
+            double[][] hitRatios = new double[capacities.size()][factories.size()];
+            for (int i = 0; i < futures.size(); i++) {
+                for (int j = 0; j < futures.get(i).size(); j++) {
+                    hitRatios[i][j] = futures.get(i).get(j).get();
+                }
+            }
+            return hitRatios;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private double simulate(int capacity, IntFunction<EvictionPolicy<Long, Boolean>> factory) {
+        int scaledCapacity = (int) Math.max(1, Math.round(capacity * sampleRate));
+        LRUCache<Long, Boolean> cache = new LRUCache<>(scaledCapacity, factory.apply(scaledCapacity));
+        long hits = 0;
+        long sampled = 0;
+        for (MappedByteBuffer region : regions) {
+            int limit = region.limit();
+            for (int offset = 0; offset < limit; offset += Long.BYTES) {
+                long key = region.getLong(offset);
+                if (sampleThreshold < SAMPLE_MODULUS && (mix(key) & (SAMPLE_MODULUS - 1)) >= sampleThreshold) {
+                    continue;
+                }
+                sampled++;
+                if (cache.get(key) != null) {
+                    hits++;
+                } else {
+                    cache.put(key, Boolean.TRUE);
+                }
+            }
+        }
+        if (sampleThreshold == SAMPLE_MODULUS) {
+            return accesses == 0 ? 0 : (double) hits / accesses;
+        }
+        // SHARDS-adj: a few very hot keys make the sample size swing with whether they
+        // happened to be sampled; credit the shortfall against the expected count as hits.
+        double expected = (double) accesses * sampleThreshold / SAMPLE_MODULUS;
+        return expected == 0 ? 0 : Math.min(1, Math.max(0, (hits + expected - sampled) / expected));
+    }
+
+    private void print(List<Integer> capacities, Map<String, IntFunction<EvictionPolicy<Long, Boolean>>> factories,
+                       double[][] hitRatios) {
+        StringBuilder header = new StringBuilder(String.format("%12s", "capacity"));
+        for (String name : factories.keySet()) {
+            header.append(String.format("%10s", name));
+        }
+        System.out.println(header);
+        for (int i = 0; i < capacities.size(); i++) {
+            StringBuilder row = new StringBuilder(String.format("%,12d", capacities.get(i)));
+            for (double hitRatio : hitRatios[i]) {
+                row.append(String.format("%9.2f%%", hitRatio * 100));
+            }
+            System.out.println(row);
+        }
+    }
+
+    private static IntFunction<EvictionPolicy<Long, Boolean>> policy(String name) {
+        return switch (name) {
+            case "lru" -> capacity -> new LruPolicy<>();
+            case "wtlfu" -> WindowTinyLfuPolicy::new;
+            case "slru" -> SegmentedLruPolicy::new;
+            case "2q" -> TwoQueuePolicy::new;
+            case "arc" -> ArcPolicy::new;
+            default -> throw new IllegalArgumentException("unknown policy " + name);
+        };
+    }
+
+    // Murmur3 finalizer: sampling must not correlate with how keys were assigned.
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.function.Consumer;
+
+/**
+ * Full 2Q (Johnson &amp; Shasha). First-time entries go to a FIFO {@code A1in}
+ * (25% of capacity) where re-accesses do not reorder them. When evicted from
+ * {@code A1in} only their key is remembered in a ghost queue {@code A1out} (50% of
+ * capacity); a key that comes back while still remembered has proven itself and is
+ * admitted straight into the main LRU queue {@code Am}.
+ */
+public class TwoQueuePolicy<K, V> implements EvictionPolicy<K, V> {
+    private static final int A1_IN = 1;
+    private static final int AM = 2;
+
+    private final int a1InMaximum;
+    private final int a1OutMaximum;
+    private final EntryList<K, V> a1In = new EntryList<>();
+    private final EntryList<K, V> am = new EntryList<>();
+    private final LinkedHashSet<K> a1Out = new LinkedHashSet<>();
+
+    public TwoQueuePolicy(int capacity) {
+        this.a1InMaximum = Math.max(1, capacity / 4);
+        this.a1OutMaximum = Math.max(1, capacity / 2);
+    }
+
+    @Override
+    public void onInsert(CacheEntry<K, V> entry) {
+        if (a1Out.remove(entry.key)) {
+            entry.queue = AM;
+            am.addFirst(entry);
+        } else {
+            entry.queue = A1_IN;
+            a1In.addFirst(entry);
+        }
+    }
+
+    @Override
+    public void onAccess(CacheEntry<K, V> entry) {
+        if (entry.queue == AM) {
+            am.moveToFront(entry);
+        }
+        // A1in is FIFO: correlated re-references right after insertion don't count.
+    }
+
+    @Override
+    public void onRemove(CacheEntry<K, V> entry) {
+        (entry.queue == AM ? am : a1In).remove(entry);
+    }
+
+    @Override
+    public CacheEntry<K, V> evict() {
+        if (a1In.size() > a1InMaximum || am.isEmpty()) {
+            CacheEntry<K, V> victim = a1In.removeLast();
+            if (victim != null) {
+                remember(victim.key);
+            }
+            return victim;
+        }
+        return am.removeLast();
+    }
+
+    @Override
+    public void forEachHottestFirst(Consumer<? super CacheEntry<K, V>> action) {
+        am.forEach(action);
+        a1In.forEach(action);
+    }
+
+    private void remember(K key) {
+        a1Out.add(key);
+        if (a1Out.size() > a1OutMaximum) {
+            Iterator<K> oldest = a1Out.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example;
+
+/**
+ * Computes the cost of an entry against an {@link LRUCache}'s maximum weight,
+ * e.g. the number of bytes in a serialized value.
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+    int weigh(K key, V value);
+
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
@@ -0,0 +1,95 @@
+package org.example;
+
+import java.util.function.Consumer;
+
+/**
+ * W-TinyLFU: new entries land in a small LRU window (~1% of capacity). Entries pushed
+ * out of the window become candidates for the main LRU region and are only admitted
+ * if a {@link FrequencySketch} has seen them more often than the main region's LRU
+ * victim, so a one-off scan of cold keys cannot flush the hot working set.
+ */
+public class WindowTinyLfuPolicy<K, V> implements EvictionPolicy<K, V> {
+    private static final int WINDOW = 1;
+    private static final int MAIN = 2;
+
+    private final FrequencySketch<K> sketch;
+    private final int windowMaximum;
+    private final EntryList<K, V> window = new EntryList<>();
+    private final EntryList<K, V> main = new EntryList<>();
+
+    // Entries moved out of the window by the latest insert. They sit at the front
+    // of main, oldest deepest; `candidate` is the next one to be judged.
+    private CacheEntry<K, V> candidate;
+    private int candidates;
+
+    /** @param capacity expected number of entries; sizes the window and the sketch */
+    public WindowTinyLfuPolicy(int capacity) {
+        this.sketch = new FrequencySketch<>(capacity);
+        this.windowMaximum = Math.max(1, capacity / 100);
+    }
+
+    @Override
+    public void onInsert(CacheEntry<K, V> entry) {
+        resetCandidates();
+        sketch.increment(entry.key);
+        entry.queue = WINDOW;
+        window.addFirst(entry);
+
+        while (window.size() > windowMaximum) {
+            CacheEntry<K, V> moved = window.removeLast();
+            moved.queue = MAIN;
+            main.addFirst(moved);
+            if (candidate == null) {
+                candidate = moved;
+            }
+            candidates++;
+        }
+    }
+
+    @Override
+    public void onAccess(CacheEntry<K, V> entry) {
+        resetCandidates();
+        sketch.increment(entry.key);
+        listOf(entry).moveToFront(entry);
+    }
+
+    @Override
+    public void onRemove(CacheEntry<K, V> entry) {
+        resetCandidates();
+        listOf(entry).remove(entry);
+    }
+
+    @Override
+    public CacheEntry<K, V> evict() {
+        CacheEntry<K, V> victim = main.last();
+        if (victim == null) {
+            return window.removeLast();
+        }
+        if (candidate == null) {
+            return main.removeLast();
+        }
+
+        if (victim != candidate && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            return main.removeLast();
+        }
+        CacheEntry<K, V> rejected = candidate;
+        candidate = --candidates > 0 ? rejected.prev : null;
+        main.remove(rejected);
+        return rejected;
+    }
+
+    @Override
+    public void forEachHottestFirst(Consumer<? super CacheEntry<K, V>> action) {
+        window.forEach(action);
+        main.forEach(action);
+    }
+
+    private EntryList<K, V> listOf(CacheEntry<K, V> entry) {
+        return entry.queue == WINDOW ? window : main;
+    }
+
+    private void resetCandidates() {
+        candidate = null;
+        candidates = 0;
+    }
+}
@@ -0,0 +1,201 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dirty values of a write-behind {@link LRUCache}, keyed so that repeated puts of a key
+ * coalesce into one pending write. A single daemon thread flushes them through the
+ * {@link CacheWriter} in batches, every {@code maxDelay} or as soon as
+ * {@code batchSize} keys are dirty. A dirty value is kept here until it has been
+ * written, so removing its cache entry never loses it. {@link #close()} writes what
+ * is left and stops the thread.
+ * <p>
+ * At most {@code batchSize * MAX_PENDING_BATCHES} keys can be dirty; a put of another
+ * key waits until a flush makes room, so a store that is down slows writers instead of
+ * growing the heap. After a failed batch, timed flushes back off exponentially, up to
+ * {@code MAX_BACKOFF_FACTOR * maxDelay}; explicit flushes always try.
+ */
+class WriteBehindBuffer<K, V> {
+    private static final System.Logger LOGGER = System.getLogger(WriteBehindBuffer.class.getName());
+    private static final int MAX_PENDING_BATCHES = 16;
+    private static final int MAX_BACKOFF_FACTOR = 64;
+
+    private final CacheWriter<K, V> writer;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final ConcurrentHashMap<K, V> dirty = new ConcurrentHashMap<>();
+    private final Semaphore freeSlots;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    // Touched by the flusher thread only.
+    private int failures;
+    private long retryAtNanos;
+
+    WriteBehindBuffer(CacheWriter<K, V> writer, int batchSize, long maxDelayNanos) {
+        if (batchSize <= 0 || maxDelayNanos <= 0) {
+            throw new IllegalArgumentException("batchSize and maxDelay must be positive");
+        }
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelayNanos;
+        this.freeSlots = new Semaphore((int) Math.min(Integer.MAX_VALUE, (long) batchSize * MAX_PENDING_BATCHES));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> writeDirty(false), maxDelayNanos, maxDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records {@code value} as the next write for {@code key}, waiting for room if the
+     * buffer is full.
+     *
+     * @throws IllegalStateException if the buffer has been closed
+     */
+    void markDirty(K key, V value) {
+        ensureOpen();
+        if (dirty.replace(key, value) != null) {
+            return; // Coalesced into the pending write.
+        }
+        awaitSlot();
+        if (dirty.put(key, value) != null) {
+            freeSlots.release(); // Another writer added the key meanwhile.
+        } else if (dirty.size() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /** The value waiting to be written for {@code key}, or null. */
+    V pending(K key) {
+        return dirty.get(key);
+    }
+
+    // The cache entry is gone; get its pending write out now rather than at the next tick.
+    void onRemoval(K key) {
+        if (!closed && dirty.containsKey(key)) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Writes everything dirty and waits for it, e.g. before shutdown.
+     *
+     * @throws IllegalStateException if the buffer has been closed
+     */
+    void flush() {
+        ensureOpen();
+        awaitFlush();
+    }
+
+    /** Writes everything dirty, then stops the flusher thread. Later writes are rejected. */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            awaitFlush();
+        } finally {
+            flusher.shutdown();
+        }
+        if (!dirty.isEmpty()) {
+            LOGGER.log(System.Logger.Level.WARNING, "write-behind closed with " + dirty.size() + " unwritten keys");
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("write-behind cache is closed");
+        }
+    }
+
+    private void awaitSlot() {
+        try {
+            while (!freeSlots.tryAcquire(maxDelayNanos, TimeUnit.NANOSECONDS)) {
+                ensureOpen();
+                requestFlush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for write-behind room", e);
+        }
+    }
+
+    private void awaitFlush() {
+        try {
+            flusher.submit(() -> writeDirty(true)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("write-behind flush failed", e.getCause());
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushRequested.set(false);
+                    writeDirty(false);
+                });
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+                ensureOpen(); // Closed concurrently: report that rather than the rejection.
+                throw e;
+            }
+        }
+    }
+
+    // Runs on the flusher thread only, so writes of one key never reorder.
+    private void writeDirty(boolean force) {
+        if (!force && failures > 0 && System.nanoTime() - retryAtNanos < 0) {
+            return;
+        }
+        Map<K, V> batch = new HashMap<>();
+        for (Map.Entry<K, V> entry : dirty.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() == batchSize) {
+                if (!write(batch)) {
+                    return;
+                }
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private boolean write(Map<K, V> batch) {
+        try {
+            writer.writeAll(batch);
+        } catch (RuntimeException e) {
+            failures++;
+            long backoff = maxDelayNanos * Math.min(1L << Math.min(failures, 30), MAX_BACKOFF_FACTOR);
+            retryAtNanos = System.nanoTime() + backoff;
+            LOGGER.log(System.Logger.Level.WARNING, "write-behind batch of " + batch.size()
+                    + " failed; retrying in " + TimeUnit.NANOSECONDS.toMillis(backoff) + " ms", e);
+            return false;
+        }
+        failures = 0;
+        // A key updated while its batch was being written stays dirty for the next flush.
+        batch.forEach((key, value) -> {
+            if (dirty.remove(key, value)) {
+                freeSlots.release();
+            }
+        });
+        return true;
+    }
+}
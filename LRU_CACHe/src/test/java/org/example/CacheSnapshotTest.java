@@ -0,0 +1,93 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loadRebuildsRecencyOrder() throws IOException {
+        LRUCache<String, String> cache = new LRUCache<>(3);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.get("a"); // b is now the least recently used
+        Path file = dir.resolve("cache.snap");
+
+        assertEquals(3, CacheSnapshot.save(cache, file, Codec.utf8(), Codec.utf8()));
+        LRUCache<String, String> restored = new LRUCache<>(3);
+        assertEquals(3, CacheSnapshot.load(file, Codec.utf8(), Codec.utf8(), restored));
+
+        restored.put("d", "4");
+        assertNull(restored.get("b"));
+        assertEquals("1", restored.get("a"));
+        assertEquals("3", restored.get("c"));
+    }
+
+    @Test
+    void saveReplacesTheFileAndLeavesNoTemporaryFile() throws IOException {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(16, 4);
+        cache.put("a", "1");
+        Path file = dir.resolve("cache.snap");
+        CacheSnapshot.save(cache, file, Codec.utf8(), Codec.utf8());
+        cache.put("b", "2");
+
+        assertEquals(2, CacheSnapshot.save(cache, file, Codec.utf8(), Codec.utf8()));
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(file), files.toList());
+        }
+        ConcurrentLRUCache<String, String> restored = new ConcurrentLRUCache<>(16, 4);
+        CacheSnapshot.load(file, Codec.utf8(), Codec.utf8(), restored);
+        assertEquals("2", restored.get("b"));
+    }
+
+    @Test
+    void badLengthFieldIsReportedWithItsOffset() throws IOException {
+        Path file = saveOneEntry();
+        long trailer = Files.size(file) - Integer.BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 1 << 30), trailer);
+        }
+
+        IOException e = assertThrows(IOException.class,
+                () -> CacheSnapshot.load(file, Codec.utf8(), Codec.utf8(), new LRUCache<String, String>(4)));
+        assertTrue(e.getMessage().contains("at offset " + trailer), e.getMessage());
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = saveOneEntry();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertThrows(IOException.class,
+                () -> CacheSnapshot.load(file, Codec.utf8(), Codec.utf8(), new LRUCache<String, String>(4)));
+    }
+
+    private Path saveOneEntry() throws IOException {
+        LRUCache<String, String> cache = new LRUCache<>(4);
+        cache.put("key", "value");
+        Path file = dir.resolve("one.snap");
+        CacheSnapshot.save(cache, file, Codec.utf8(), Codec.utf8());
+        return file;
+    }
+}
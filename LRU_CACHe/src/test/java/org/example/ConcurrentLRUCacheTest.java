@@ -0,0 +1,186 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentLRUCacheTest {
+
+    @Test
+    void putDuringLoadIsNotOverwritten() throws Exception {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(16, 4);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+
+        CompletableFuture<String> load = CompletableFuture.supplyAsync(() -> cache.get("k", key -> {
+            loading.countDown();
+            await(written);
+            return "stale-from-backend";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.put("k", "fresh");
+        written.countDown();
+
+        assertEquals("fresh", load.get(5, TimeUnit.SECONDS));
+        assertEquals("fresh", cache.get("k"));
+    }
+
+    @Test
+    void loadStoresValueWhenKeyStaysAbsent() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(16, 4);
+
+        assertEquals("loaded", cache.get("k", key -> "loaded"));
+        assertEquals("loaded", cache.get("k"));
+    }
+
+    @Test
+    void putDuringRefreshIsNotOverwritten() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(16, 4)
+                .ticker(nanos::get)
+                .refreshAfterWrite(1, TimeUnit.SECONDS);
+        cache.put("k", "old");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch refreshed = new CountDownLatch(1);
+        cache.executor(task -> new Thread(() -> {
+            task.run();
+            refreshed.countDown();
+        }).start());
+
+        assertEquals("old", cache.get("k", key -> {
+            loading.countDown();
+            await(written);
+            return "stale-from-backend";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.put("k", "fresh");
+        written.countDown();
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+        assertEquals("fresh", cache.get("k"));
+    }
+
+    @Test
+    void refreshReplacesUnchangedEntry() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(16, 4)
+                .ticker(nanos::get)
+                .refreshAfterWrite(1, TimeUnit.SECONDS)
+                .executor(task -> {
+                    task.run();
+                    refreshed.countDown();
+                });
+        cache.put("k", "old");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        assertEquals("old", cache.get("k", key -> "new"));
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        assertEquals("new", cache.get("k"));
+    }
+
+    @Test
+    void putDuringBatchLoadIsNotOverwritten() throws Exception {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<>(16, 4);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+
+        CompletableFuture<Map<String, String>> load = CompletableFuture.supplyAsync(() ->
+                cache.getAll(List.of("a", "b"), keys -> {
+                    loading.countDown();
+                    await(written);
+                    return Map.of("a", "stale-a", "b", "loaded-b");
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.put("a", "fresh-a");
+        written.countDown();
+
+        assertEquals(Map.of("a", "fresh-a", "b", "loaded-b"), load.get(5, TimeUnit.SECONDS));
+        assertEquals("fresh-a", cache.get("a"));
+        assertEquals("loaded-b", cache.get("b"));
+    }
+
+    @Test
+    void segmentCapacitiesAddUpToCapacity() {
+        ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(10, 8);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    void replicatedKeySeesPutAndInvalidate() {
+        AtomicLong nanos = new AtomicLong(TimeUnit.SECONDS.toNanos(10));
+        ConcurrentLRUCache<String, String> cache = replicated(16, nanos);
+        cache.put("a", "1");
+        makeHot(cache, "a", "1");
+
+        cache.put("a", "2");
+        assertEquals("2", cache.get("a"));
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        cache.put("a", "3");
+        assertEquals("3", cache.get("a"));
+    }
+
+    @Test
+    void replicatedKeySeesEviction() {
+        AtomicLong nanos = new AtomicLong(TimeUnit.SECONDS.toNanos(10));
+        ConcurrentLRUCache<String, String> cache = replicated(2, nanos);
+        cache.put("a", "1");
+        makeHot(cache, "a", "1");
+
+        cache.put("b", "2");
+        cache.put("c", "3"); // replica hits never reach the LRU list, so a is the victim
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void replicatedKeySeesExpiry() {
+        AtomicLong nanos = new AtomicLong(TimeUnit.SECONDS.toNanos(10));
+        ConcurrentLRUCache<String, String> cache = replicated(16, nanos)
+                .expireAfterWrite(5, TimeUnit.SECONDS);
+        cache.put("a", "1");
+        makeHot(cache, "a", "1");
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertNull(cache.get("a"));
+    }
+
+    // One segment, every access sampled.
+    private static ConcurrentLRUCache<String, String> replicated(int capacity, AtomicLong nanos) {
+        return new ConcurrentLRUCache<String, String>(capacity, 1)
+                .ticker(nanos::get)
+                .trackHotKeys(16, 1)
+                .replicateHotKeys(4);
+    }
+
+    // Enough reads for this thread to recompute the hot set and copy the key.
+    private static void makeHot(ConcurrentLRUCache<String, String> cache, String key, String value) {
+        for (int i = 0; i < 2048; i++) {
+            assertEquals(value, cache.get(key));
+        }
+        assertEquals(key, cache.hotKeys(1).get(0).key());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
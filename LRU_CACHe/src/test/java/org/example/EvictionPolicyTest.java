@@ -0,0 +1,91 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Drives each policy the way LRUCache does (insert, then evict while over capacity)
+// and checks the exact victim order.
+class EvictionPolicyTest {
+
+    @Test
+    void segmentedLruEvictsProbationFirstAndDemotesProtectedOverflow() {
+        Simulation slru = new Simulation(5, new SegmentedLruPolicy<>(5)); // protected holds 4
+        slru.access(1, 2, 3, 4, 5, 1, 2); // 1 and 2 promoted
+
+        slru.access(6, 7, 8);
+        assertEquals(List.of(3, 4, 5), slru.victims);
+
+        slru.access(6, 7, 8); // protected now 1, 2, 6, 7, 8: 1 is demoted
+        slru.access(9);
+        assertEquals(List.of(3, 4, 5, 1), slru.victims);
+    }
+
+    @Test
+    void twoQueueKeepsA1InFifoAndAdmitsGhostHitsToAm() {
+        Simulation twoQueue = new Simulation(8, new TwoQueuePolicy<>(8)); // A1in 2, A1out 4
+        twoQueue.access(1, 2, 3, 4, 5, 6, 7, 8, 9);
+        twoQueue.access(2, 10); // a re-access in A1in does not save 2
+        assertEquals(List.of(1, 2), twoQueue.victims);
+
+        twoQueue.access(1); // remembered in A1out, goes to Am
+        twoQueue.access(11, 12, 13, 14, 15, 16);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), twoQueue.victims);
+
+        twoQueue.access(2); // forgotten by A1out: a first-time entry again
+        twoQueue.access(9); // still remembered
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11), twoQueue.victims);
+    }
+
+    @Test
+    void arcShiftsItsTargetTowardsTheGhostListThatWasHit() {
+        Simulation arc = new Simulation(4, new ArcPolicy<>(4));
+        arc.access(1, 2, 3, 4, 1, 2); // T1 = 4 3, T2 = 2 1
+        arc.access(5, 6);
+        assertEquals(List.of(3, 4), arc.victims);
+
+        arc.access(3); // B1 hit: p grows to 1 and 3 moves to T2
+        assertEquals(List.of(3, 4, 5), arc.victims);
+        arc.access(7); // T1 is within its target, so T2 gives up its LRU instead of 6
+        assertEquals(List.of(3, 4, 5, 1), arc.victims);
+
+        arc.access(1); // B2 hit: p drops back to 0
+        arc.access(8);
+        assertEquals(List.of(3, 4, 5, 1, 6, 7), arc.victims);
+    }
+
+    private static final class Simulation {
+        final int capacity;
+        final EvictionPolicy<Integer, Integer> policy;
+        final Map<Integer, CacheEntry<Integer, Integer>> resident = new HashMap<>();
+        final List<Integer> victims = new ArrayList<>();
+
+        Simulation(int capacity, EvictionPolicy<Integer, Integer> policy) {
+            this.capacity = capacity;
+            this.policy = policy;
+        }
+
+        void access(int... keys) {
+            for (int key : keys) {
+                CacheEntry<Integer, Integer> entry = resident.get(key);
+                if (entry != null) {
+                    policy.onAccess(entry);
+                    continue;
+                }
+                entry = new CacheEntry<>(key, key);
+                resident.put(key, entry);
+                policy.onInsert(entry);
+                while (resident.size() > capacity) {
+                    CacheEntry<Integer, Integer> victim = policy.evict();
+                    resident.remove(victim.key);
+                    victims.add(victim.key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Same check as LongObjectLRUCacheTest for the int-to-int variant.
+class IntIntLRUCacheTest {
+    private static final int CAPACITY = 13;
+    private static final int MISSING = -1;
+
+    @Test
+    void matchesReferenceLruWhileEvictionsShiftEntries() {
+        IntIntLRUCache cache = new IntIntLRUCache(CAPACITY);
+        Map<Integer, Integer> reference = referenceLru();
+        Random random = new Random(42);
+
+        for (int op = 0; op < 100_000; op++) {
+            int key = random.nextInt(4 * CAPACITY) * 1024;
+            if (random.nextBoolean()) {
+                assertEquals((int) reference.getOrDefault(key, MISSING), cache.get(key, MISSING));
+            } else {
+                cache.put(key, op);
+                reference.put(key, op);
+            }
+            assertEquals(reference.size(), cache.size());
+        }
+
+        for (int i = 0; i < 4 * CAPACITY; i++) {
+            assertEquals(reference.containsKey(i * 1024), cache.containsKey(i * 1024));
+        }
+    }
+
+    private static Map<Integer, Integer> referenceLru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Random gets and puts on a small, crowded table, checked against an access-ordered
+// LinkedHashMap. Every eviction backward-shifts probe chains, so an entry that moves
+// without its recency links being updated shows up as a wrong value or a wrong victim.
+class LongObjectLRUCacheTest {
+    private static final int CAPACITY = 13;
+
+    @Test
+    void matchesReferenceLruWhileEvictionsShiftEntries() {
+        LongObjectLRUCache<String> cache = new LongObjectLRUCache<>(CAPACITY);
+        Map<Long, String> reference = referenceLru();
+        Random random = new Random(42);
+
+        for (int op = 0; op < 100_000; op++) {
+            long key = random.nextInt(4 * CAPACITY) * 1024L; // spread out keys still share home slots
+            if (random.nextBoolean()) {
+                assertEquals(reference.get(key), cache.get(key));
+            } else {
+                String value = "v" + op;
+                cache.put(key, value);
+                reference.put(key, value);
+            }
+            assertEquals(reference.size(), cache.size());
+        }
+
+        for (int i = 0; i < 4 * CAPACITY; i++) {
+            assertEquals(reference.containsKey(i * 1024L), cache.containsKey(i * 1024L));
+        }
+    }
+
+    private static Map<Long, String> referenceLru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+    }
+}
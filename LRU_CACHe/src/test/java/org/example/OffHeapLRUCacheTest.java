@@ -0,0 +1,108 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// 1 KB pages: the 64-byte class holds 16 values of up to 60 bytes per page, the
+// 224-byte class 4 values of up to 220 bytes, the 552-byte class one of up to 548.
+class OffHeapLRUCacheTest {
+    private static final int PAGE = 1024;
+
+    @Test
+    void fullClassEvictsItsLeastRecentlyUsedValue() {
+        OffHeapLRUCache<String> cache = new OffHeapLRUCache<>(PAGE, PAGE);
+        for (int i = 0; i < 16; i++) {
+            cache.put("k" + i, value(i, 10));
+        }
+        cache.get("k0");
+
+        cache.put("k16", value(16, 10));
+
+        assertArrayEquals(value(0, 10), cache.get("k0"));
+        assertNull(cache.get("k1"));
+        assertEquals(16, cache.size());
+    }
+
+    @Test
+    void valueThatChangesSizeClassIsStoredWhenItsClassHasNoPage() {
+        OffHeapLRUCache<String> cache = new OffHeapLRUCache<>(PAGE, PAGE);
+        cache.put("a", value(1, 10));
+
+        cache.put("a", value(2, 200)); // the only page moves to the 224-byte class
+
+        assertArrayEquals(value(2, 200), cache.get("a"));
+        assertEquals(1, cache.size());
+        assertEquals(PAGE, cache.allocatedBytes());
+    }
+
+    @Test
+    void pageComesFromTheClassWithTheOldestValue() {
+        OffHeapLRUCache<String> cache = new OffHeapLRUCache<>(2 * PAGE, PAGE);
+        for (int i = 0; i < 4; i++) {
+            cache.put("big" + i, value(i, 200));
+        }
+        for (int i = 0; i < 16; i++) {
+            cache.put("small" + i, value(i, 10));
+        }
+
+        cache.put("huge", value(0, 500));
+
+        for (int i = 0; i < 4; i++) {
+            assertNull(cache.get("big" + i));
+        }
+        for (int i = 0; i < 16; i++) {
+            assertArrayEquals(value(i, 10), cache.get("small" + i));
+        }
+        assertArrayEquals(value(0, 500), cache.get("huge"));
+        assertEquals(2 * PAGE, cache.allocatedBytes());
+    }
+
+    @Test
+    void valuesOnAReleasedPageMoveIntoFreeChunks() {
+        OffHeapLRUCache<String> cache = new OffHeapLRUCache<>(3 * PAGE, PAGE);
+        for (int i = 0; i < 20; i++) {
+            cache.put("k" + i, value(i, 10)); // k16..k19 land on the second page
+        }
+        for (int i = 0; i < 4; i++) {
+            cache.put("k" + i, value(i, 200)); // frees four chunks on the first page
+        }
+
+        cache.put("huge", value(0, 500)); // the small class is oldest and gives up its second page
+
+        for (int i = 0; i < 4; i++) {
+            assertArrayEquals(value(i, 200), cache.get("k" + i));
+        }
+        for (int i = 4; i < 20; i++) {
+            assertArrayEquals(value(i, 10), cache.get("k" + i));
+        }
+        assertArrayEquals(value(0, 500), cache.get("huge"));
+        assertEquals(21, cache.size());
+    }
+
+    @Test
+    void indexSurvivesGrowthAndRemoval() {
+        ObjectLongHashMap<Integer> map = new ObjectLongHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i * 10L);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(i * 10L, map.remove(i));
+        }
+
+        assertEquals(500, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0 ? ObjectLongHashMap.MISSING : i * 10L, map.get(i));
+        }
+    }
+
+    private static byte[] value(int seed, int length) {
+        byte[] value = new byte[length];
+        Arrays.fill(value, (byte) seed);
+        return value;
+    }
+}
@@ -0,0 +1,121 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemovalDispatcherTest {
+
+    @Test
+    void writerDoesNotWaitForBlockedListener() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(1, 1);
+            // Writes back into the cache, so it needs the segment lock the writer holds.
+            cache.removalListener((key, value, cause) -> {
+                awaitQuietly(release);
+                if (key >= 0) {
+                    cache.put(-1, value);
+                }
+            }, executor);
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < 10_000; i++) {
+                    cache.put(i, i);
+                }
+            });
+            release.countDown();
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void fullRingOverflowsWithoutLosingOrReordering() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RemovalDispatcher<Integer, Integer> dispatcher = new RemovalDispatcher<>((key, value, cause) -> {
+                awaitQuietly(release);
+                delivered.add(key);
+            }, executor);
+            for (int i = 0; i < 10_000; i++) {
+                dispatcher.publish(i, i, RemovalCause.SIZE);
+            }
+            assertTrue(dispatcher.overflowCount() > 0);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(IntStream.range(0, 10_000).boxed().toList(), delivered);
+    }
+
+    @Test
+    void listenerErrorDoesNotStopDelivery() {
+        List<Integer> delivered = new ArrayList<>();
+        RemovalDispatcher<Integer, Integer> dispatcher = new RemovalDispatcher<>(
+                (key, value, cause) -> {
+                    if (key == 1) {
+                        throw new AssertionError("listener bug");
+                    }
+                    delivered.add(key);
+                },
+                task -> {
+                    try {
+                        task.run();
+                    } catch (AssertionError e) {
+                        // What a pool thread dying of it would look like to the dispatcher.
+                    }
+                });
+
+        dispatcher.publish(1, 1, RemovalCause.EXPLICIT);
+        dispatcher.publish(2, 2, RemovalCause.EXPLICIT);
+
+        assertEquals(List.of(2), delivered);
+    }
+
+    @Test
+    void rejectedDrainIsRetriedOnNextPublish() throws Exception {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        List<Integer> delivered = new ArrayList<>();
+        RemovalDispatcher<Integer, Integer> dispatcher = new RemovalDispatcher<>(
+                (key, value, cause) -> delivered.add(key),
+                task -> {
+                    if (reject.getAndSet(false)) {
+                        throw new RejectedExecutionException();
+                    }
+                    task.run();
+                });
+
+        dispatcher.publish(1, 1, RemovalCause.EXPLICIT);
+        dispatcher.publish(2, 2, RemovalCause.EXPLICIT);
+
+        assertEquals(List.of(1, 2), delivered);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentLogTest {
+    // 8-byte header + 1-byte key + 20-byte value: two records fill a 64-byte segment.
+    private static final int SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void openDeletesOnlyItsOwnSegmentFiles() throws Exception {
+        Path foreign = Files.writeString(directory.resolve("app.log"), "keep me");
+        Path leftover = Files.writeString(directory.resolve("0000000007.log"), "old segment");
+
+        try (SegmentLog log = new SegmentLog(directory, SEGMENT_BYTES, 4)) {
+            assertTrue(Files.exists(foreign));
+            assertFalse(Files.exists(leftover));
+        }
+        assertTrue(Files.exists(foreign));
+    }
+
+    @Test
+    void compactionReclaimsGarbageFromOverwritesAndRemoves() throws Exception {
+        try (SegmentLog log = new SegmentLog(directory, SEGMENT_BYTES, 8)) {
+            log.put(key("a"), value('1'));
+            log.put(key("b"), value('1'));
+            log.put(key("a"), value('2')); // segment 0 is now all garbage
+            log.put(key("b"), value('2'));
+            log.put(key("c"), value('1'));
+            assertEquals(3, log.segmentCount());
+
+            log.compact();
+            assertEquals(2, log.segmentCount());
+            assertArrayEquals(value('2'), log.get(key("a")));
+            assertArrayEquals(value('2'), log.get(key("b")));
+
+            log.remove(key("a"));
+            assertArrayEquals(value('2'), log.take(key("b")));
+            log.compact();
+            assertEquals(1, log.segmentCount());
+            assertEquals(1, log.size());
+            assertArrayEquals(value('1'), log.get(key("c")));
+        }
+    }
+
+    @Test
+    void halfLiveSegmentIsNotCompacted() throws Exception {
+        try (SegmentLog log = new SegmentLog(directory, SEGMENT_BYTES, 8)) {
+            log.put(key("a"), value('1'));
+            log.put(key("b"), value('1'));
+            log.put(key("c"), value('1'));
+            log.remove(key("a"));
+
+            log.compact();
+            assertEquals(2, log.segmentCount());
+        }
+    }
+
+    @Test
+    void oldestSegmentIsDroppedWhenBudgetIsExceeded() throws Exception {
+        try (SegmentLog log = new SegmentLog(directory, SEGMENT_BYTES, 2)) {
+            for (String key : new String[] {"a", "b", "c", "d", "e"}) {
+                log.put(key(key), value('1'));
+            }
+
+            assertEquals(2, log.segmentCount());
+            assertEquals(3, log.size());
+            assertNull(log.get(key("a")));
+            assertNull(log.take(key("b")));
+            assertArrayEquals(value('1'), log.get(key("c")));
+            assertEquals(3, log.size());
+
+            log.put(key("a"), value('2'));
+            assertArrayEquals(value('2'), log.get(key("a")));
+            assertEquals(4, log.size());
+        }
+    }
+
+    @Test
+    void hashCollisionTurnsOlderKeyIntoMiss() throws Exception {
+        try (SegmentLog log = new SegmentLog(directory, SEGMENT_BYTES, 4, key -> 42)) {
+            log.put(key("a"), value('1'));
+            log.put(key("b"), value('2'));
+
+            assertNull(log.get(key("a")));
+            assertArrayEquals(value('2'), log.get(key("b")));
+            assertEquals(1, log.size());
+        }
+    }
+
+    @Test
+    void closeDeletesSegmentsAndRejectsFurtherUse() throws Exception {
+        SegmentLog log = new SegmentLog(directory, SEGMENT_BYTES, 4);
+        log.put(key("a"), value('1'));
+        log.close();
+
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        assertThrows(IllegalStateException.class, () -> log.get(key("a")));
+        assertThrows(IllegalStateException.class, () -> log.put(key("a"), value('1')));
+    }
+
+    private static byte[] key(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] value(char fill) {
+        return String.valueOf(fill).repeat(20).getBytes(StandardCharsets.UTF_8);
+    }
+}
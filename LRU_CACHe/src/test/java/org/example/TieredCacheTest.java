@@ -0,0 +1,91 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void evictedEntryIsDemotedAndPromotedOnMiss() throws Exception {
+        try (TieredCache<String, String> cache = newCache()) {
+            cache.put("a", "A");
+            cache.put("b", "B");
+            cache.put("c", "C");
+            assertEquals(2, cache.l1Size());
+            assertEquals(1, cache.l2Size());
+
+            assertEquals("A", cache.get("a")); // promoted; b is demoted in its place
+            assertEquals(2, cache.l1Size());
+            assertEquals(1, cache.l2Size());
+            assertEquals("B", cache.get("b"));
+        }
+    }
+
+    @Test
+    void putAndInvalidateHideTheDiskCopy() throws Exception {
+        try (TieredCache<String, String> cache = newCache()) {
+            cache.put("a", "A");
+            cache.put("b", "B");
+            cache.put("c", "C");
+            cache.put("a", "A2"); // drops the disk copy of a, demotes b
+            assertEquals(1, cache.l2Size());
+
+            cache.put("d", "D");
+            cache.put("e", "E");
+            assertEquals("A2", cache.get("a"));
+
+            cache.invalidate("a");
+            assertNull(cache.get("a"));
+        }
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        try (TieredCache<String, String> cache = newCache()) {
+            AtomicInteger loads = new AtomicInteger();
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("k", key -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "loaded";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get("k", key -> {
+                loads.incrementAndGet();
+                return "second";
+            }));
+            release.countDown();
+
+            assertEquals("loaded", first.get(5, TimeUnit.SECONDS));
+            assertEquals("loaded", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        }
+    }
+
+    private TieredCache<String, String> newCache() throws Exception {
+        return new TieredCache<>(2, directory, 2 << 20, Codec.utf8(), Codec.utf8());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
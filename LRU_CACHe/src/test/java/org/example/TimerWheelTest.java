@@ -0,0 +1,58 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+    private static final long START = 123_456_789_000L;
+    private static final long LEVEL_ZERO_TICK = 1L << 30;
+    private static final long MAX_STEP = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void entriesExpireOnTimeFromEveryLevel() {
+        Map<CacheEntry<Integer, Long>, Long> expiredAt = new HashMap<>();
+        long[] now = {START};
+        TimerWheel<Integer, Long> wheel = new TimerWheel<>(START, entry -> expiredAt.put(entry, now[0]));
+
+        // Delays from milliseconds to weeks, so entries start on every level and cascade down.
+        Random random = new Random(42);
+        List<CacheEntry<Integer, Long>> entries = new ArrayList<>();
+        long[] delays = {TimeUnit.MILLISECONDS.toNanos(300), TimeUnit.SECONDS.toNanos(40),
+                TimeUnit.MINUTES.toNanos(50), TimeUnit.HOURS.toNanos(20), TimeUnit.DAYS.toNanos(3),
+                TimeUnit.DAYS.toNanos(20)};
+        for (int i = 0; i < 300; i++) {
+            long delay = i < delays.length ? delays[i] : (long) Math.pow(2, 20 + random.nextDouble() * 30);
+            CacheEntry<Integer, Long> entry = new CacheEntry<>(i, START + delay);
+            entry.expirationTime = START + delay;
+            wheel.schedule(entry);
+            entries.add(entry);
+        }
+        CacheEntry<Integer, Long> cancelled = entries.get(3);
+        wheel.deschedule(cancelled);
+
+        long end = START + TimeUnit.DAYS.toNanos(25);
+        while (now[0] < end) {
+            now[0] += 1 + (long) (random.nextDouble() * MAX_STEP);
+            wheel.advance(now[0]);
+        }
+
+        assertFalse(expiredAt.containsKey(cancelled));
+        assertEquals(entries.size() - 1, expiredAt.size());
+        for (Map.Entry<CacheEntry<Integer, Long>, Long> expired : expiredAt.entrySet()) {
+            long lateness = expired.getValue() - expired.getKey().expirationTime;
+            assertTrue(lateness >= 0, "expired early");
+            assertTrue(lateness < LEVEL_ZERO_TICK + MAX_STEP,
+                    "expired " + lateness + "ns late");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TraceSimulatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loopingTraceHitsOnlyWhenTheLoopFits() throws Exception {
+        ByteBuffer trace = ByteBuffer.allocate(12 * Long.BYTES);
+        for (int i = 0; i < 12; i++) {
+            trace.putLong(i % 3 + 1); // 1 2 3 1 2 3 ...
+        }
+        Path file = Files.write(dir.resolve("trace.bin"), trace.array());
+        Map<String, IntFunction<EvictionPolicy<Long, Boolean>>> factories = new LinkedHashMap<>();
+        factories.put("lru", capacity -> new LruPolicy<>());
+        factories.put("slru", SegmentedLruPolicy::new);
+
+        double[][] hitRatios = new TraceSimulator(file, 1.0).run(List.of(2, 3), factories);
+
+        assertArrayEquals(new double[] {0.0, 0.0}, hitRatios[0]); // every access evicts the next key
+        assertArrayEquals(new double[] {0.75, 0.75}, hitRatios[1]); // only the first pass misses
+    }
+
+    @Test
+    void optionWithoutValueIsRejected() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> TraceSimulator.main(new String[] {dir.resolve("missing.bin").toString(), "--sizes"}));
+        assertEquals("option --sizes needs a value", error.getMessage());
+    }
+}
@@ -0,0 +1,41 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WindowTinyLfuPolicyTest {
+
+    @Test
+    void scanOfColdKeysDoesNotFlushTheHotSet() {
+        LRUCache<Integer, Integer> cache = new LRUCache<>(100, new WindowTinyLfuPolicy<>(100));
+        for (int round = 0; round < 8; round++) {
+            for (int key = 0; key < 50; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+
+        for (int key = 1000; key < 2000; key++) { // plain LRU would keep none of the hot keys
+            cache.put(key, key);
+        }
+
+        for (int key = 0; key < 50; key++) {
+            assertEquals(key, cache.get(key));
+        }
+    }
+
+    @Test
+    void sketchHalvesCountsOnceTheSampleIsFull() {
+        FrequencySketch<String> sketch = new FrequencySketch<>(1); // sample size 10
+        for (int i = 0; i < 9; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(9, sketch.frequency("a"));
+
+        sketch.increment("a");
+
+        assertEquals(5, sketch.frequency("a"));
+    }
+}
@@ -0,0 +1,115 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindBufferTest {
+
+    @Test
+    void invalidateKeepsPendingWrite() {
+        Map<String, String> store = new ConcurrentHashMap<>();
+        LRUCache<String, String> cache = new LRUCache<String, String>(16)
+                .writeBehind(store::putAll, 100, 1, TimeUnit.HOURS);
+
+        cache.put("k", "v");
+        cache.invalidate("k");
+        cache.flush();
+
+        assertEquals(Map.of("k", "v"), store);
+        cache.close();
+    }
+
+    @Test
+    void evictedDirtyValueIsStillWritten() {
+        Map<String, String> store = new ConcurrentHashMap<>();
+        LRUCache<String, String> cache = new LRUCache<String, String>(1)
+                .writeBehind(store::putAll, 100, 1, TimeUnit.HOURS);
+
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.flush();
+
+        assertEquals(Map.of("a", "1", "b", "2"), store);
+        cache.close();
+    }
+
+    @Test
+    void closeWritesPendingValues() {
+        Map<String, String> store = new ConcurrentHashMap<>();
+        LRUCache<String, String> cache = new LRUCache<String, String>(16)
+                .writeBehind(store::putAll, 100, 1, TimeUnit.HOURS);
+
+        cache.put("k", "v");
+        cache.close();
+
+        assertEquals(Map.of("k", "v"), store);
+    }
+
+    @Test
+    void writesAfterCloseAreRejected() {
+        LRUCache<String, String> cache = new LRUCache<String, String>(16)
+                .writeBehind(entries -> { }, 100, 1, TimeUnit.HOURS);
+        cache.close();
+
+        assertThrows(IllegalStateException.class, () -> cache.put("k", "v"));
+        assertThrows(IllegalStateException.class, cache::flush);
+        cache.close();
+    }
+
+    // batchSize 1 caps the buffer at 16 dirty keys.
+    @Test
+    void fullBufferMakesPutWaitForTheStore() throws Exception {
+        Map<String, String> store = new ConcurrentHashMap<>();
+        CountDownLatch storeUp = new CountDownLatch(1);
+        LRUCache<String, String> cache = new LRUCache<String, String>(100)
+                .writeBehind(entries -> {
+                    if (storeUp.getCount() > 0) {
+                        throw new IllegalStateException("store down");
+                    }
+                    store.putAll(entries);
+                }, 1, 1, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 16; i++) {
+            cache.put("k" + i, "v");
+        }
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> cache.put("k16", "v"));
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+        cache.put("k0", "coalesced"); // an existing key never waits
+
+        storeUp.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        cache.close();
+        assertEquals(17, store.size());
+        assertEquals("coalesced", store.get("k0"));
+    }
+
+    @Test
+    void failingStoreIsRetriedWithBackoff() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        LRUCache<String, String> cache = new LRUCache<String, String>(16)
+                .writeBehind(entries -> {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("store down");
+                }, 100, 5, TimeUnit.MILLISECONDS);
+        cache.put("k", "v");
+
+        // Without backoff a 5 ms tick would try about 100 times; with doubling
+        // delays 10 + 20 + 40 + 80 + 160 + 320 ms, fewer than ten.
+        Thread.sleep(500);
+        int tried = attempts.get();
+        assertTrue(tried >= 2 && tried < 10, "attempts: " + tried);
+        cache.close();
+    }
+}
@@ -0,0 +1,255 @@
+package org.example;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe token bucket with no locks on the decision path. Each bucket is a single
+ * {@code AtomicLong}: the upper 40 bits hold the last refill time in milliseconds
+ * (modulo 2^40, about 34 years), the lower 24 bits hold the tokens in fixed point.
+ * A decision reads the word, refills, takes one token and publishes the result with
+ * one CAS; losing the race just retries with the fresh state, so concurrent callers
+ * can never admit more than the bucket holds.
+ * <p>
+ * The refill rate is fixed in units per 2^16 ms period, and the units earned between
+ * two stamps are {@code floor(t2 * rate) - floor(t1 * rate)} on that grid. The
+ * rounding telescopes, so any sequence of refills grants exactly what one refill
+ * over the whole span would: fractional tokens carry over instead of being lost.
+ * <p>
+ * {@link #reserve} borrows from future refill by moving the stamp past {@code now} to
+ * the time the missing tokens will have been earned; the bucket then refills nothing
+ * until that time, which is the negative balance being paid back.
+ */
+class ConcurrentTokenBucketPolicy implements RateLimitPolicy {
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final int TIME_BITS = Long.SIZE - TOKEN_BITS;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int PERIOD_BITS = 16;
+    private static final long PERIOD_MASK = (1L << PERIOD_BITS) - 1;
+    // Keeps reserved stamps well inside the sign-extended 40-bit range.
+    private static final long MAX_RESERVE_MILLIS = 1L << (TIME_BITS - 2);
+
+    private final long one;          // fixed-point units per token
+    private final long capacityUnits;
+    private final long unitsPerPeriod;
+    private final long fullMillis;   // refills an empty bucket
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public ConcurrentTokenBucketPolicy(int capacity, double refillRatePerSecond) {
+        if (capacity <= 0 || capacity > TOKEN_MASK) {
+            throw new IllegalArgumentException("capacity must be between 1 and " + TOKEN_MASK);
+        }
+        if (refillRatePerSecond <= 0) {
+            throw new IllegalArgumentException("refillRatePerSecond must be positive");
+        }
+        // As many fraction bits as still fit a full bucket in 24 bits.
+        int fractionBits = Integer.numberOfLeadingZeros(capacity) - (Integer.SIZE - TOKEN_BITS);
+        this.one = 1L << fractionBits;
+        this.capacityUnits = capacity * one;
+        // More than a full bucket per millisecond refills like exactly one.
+        double perPeriod = Math.min(refillRatePerSecond / 1000.0 * one, capacityUnits) * (1L << PERIOD_BITS);
+        this.unitsPerPeriod = Math.round(perPeriod);
+        if (unitsPerPeriod == 0) {
+            throw new IllegalArgumentException("refillRatePerSecond is too low for this capacity");
+        }
+        this.fullMillis = ((capacityUnits << PERIOD_BITS) + unitsPerPeriod - 1) / unitsPerPeriod;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(pack(now, capacityUnits)));
+        }
+
+        long cost = permits * one;
+        while (true) {
+            long state = bucket.get();
+            long refilled = refill(state, now);
+            long units = refilled & TOKEN_MASK;
+            if (units < cost) {
+                return false; // Nothing to publish: the bucket stays as it was.
+            }
+            if (bucket.compareAndSet(state, refilled - cost)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public void release(String key, int permits, long now) {
+        releaseUpTo(key, permits, now);
+    }
+
+    @Override
+    public long reserve(String key, int permits, long now, long maxWaitMillis) {
+        long cost = permits * one;
+        if (cost > capacityUnits) {
+            return -1; // More than the bucket ever holds at once.
+        }
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(pack(now, capacityUnits)));
+        }
+        while (true) {
+            long state = bucket.get();
+            long refilled = refill(state, now);
+            long units = refilled & TOKEN_MASK;
+            long waitMillis = 0;
+            long next = refilled - cost;
+            if (units < cost) {
+                // The stamp moves to the time the missing units are earned and keeps
+                // any excess as tokens.
+                long stamp = refilled >>> TOKEN_BITS;
+                long offset = stamp & PERIOD_MASK;
+                long missing = cost - units;
+                long span = spanToEarn(offset, missing);
+                long excess = ((offset + span) * unitsPerPeriod >>> PERIOD_BITS)
+                        - (offset * unitsPerPeriod >>> PERIOD_BITS) - missing;
+                waitMillis = span - lag(stamp, now);
+                if (waitMillis > MAX_RESERVE_MILLIS) {
+                    return -1;
+                }
+                next = pack(stamp + span, excess);
+            }
+            if (waitMillis > maxWaitMillis) {
+                return -1;
+            }
+            if (bucket.compareAndSet(state, next)) {
+                return waitMillis;
+            }
+        }
+    }
+
+    /**
+     * Returns the wait {@link #reserve} would return for {@code permits} at {@code now},
+     * without reserving anything, or -1 if they exceed the capacity.
+     */
+    long waitMillis(String key, int permits, long now) {
+        long cost = permits * one;
+        if (cost > capacityUnits) {
+            return -1;
+        }
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0; // An unknown key is a full bucket.
+        }
+        long refilled = refill(bucket.get(), now);
+        long units = refilled & TOKEN_MASK;
+        if (units >= cost) {
+            return 0;
+        }
+        long stamp = refilled >>> TOKEN_BITS;
+        return spanToEarn(stamp & PERIOD_MASK, cost - units) - lag(stamp, now);
+    }
+
+    int capacity() {
+        return (int) (capacityUnits / one);
+    }
+
+    /** Takes as many of {@code permits} as are available, possibly none, and returns the count. */
+    int tryAcquireUpTo(String key, int permits, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(pack(now, capacityUnits)));
+        }
+
+        while (true) {
+            long state = bucket.get();
+            long refilled = refill(state, now);
+            int taken = (int) Math.min(permits, (refilled & TOKEN_MASK) / one);
+            if (taken == 0) {
+                return 0;
+            }
+            if (bucket.compareAndSet(state, refilled - taken * one)) {
+                return taken;
+            }
+        }
+    }
+
+    /** Returns as many of {@code permits} as fit below capacity and returns the count. */
+    int releaseUpTo(String key, int permits, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0; // An unknown key is a full bucket.
+        }
+        while (true) {
+            long state = bucket.get();
+            long refilled = refill(state, now);
+            long stamp = refilled >>> TOKEN_BITS;
+            long units = refilled & TOKEN_MASK;
+            long ahead = -lag(stamp, now);
+            int returned = permits;
+            long next;
+            if (ahead > 0) {
+                // Pay back reserved debt first: pull the stamp back as far as the
+                // returned units cover, but not past now.
+                long offset = stamp & PERIOD_MASK;
+                long earnedBefore = offset * unitsPerPeriod >>> PERIOD_BITS;
+                long floor = earnedBefore - units - permits * one;
+                long back = Math.min(ahead, offset + Math.floorDiv(-(floor << PERIOD_BITS), unitsPerPeriod));
+                long debt = earnedBefore - Math.floorDiv((offset - back) * unitsPerPeriod, 1L << PERIOD_BITS) - units;
+                if (back == ahead) {
+                    returned = (int) Math.min(permits, (capacityUnits + debt) / one);
+                }
+                next = pack(stamp - back, returned * one - debt);
+            } else {
+                returned = (int) Math.min(permits, (capacityUnits - units) / one);
+                next = refilled + returned * one;
+            }
+            if (bucket.compareAndSet(state, next)) {
+                return returned;
+            }
+        }
+    }
+
+    // First millisecond on the refill grid, counted from a stamp at offset within its
+    // period, by which `missing` more units have been earned.
+    private long spanToEarn(long offset, long missing) {
+        long earnedBefore = offset * unitsPerPeriod >>> PERIOD_BITS;
+        return (((earnedBefore + missing) << PERIOD_BITS) + unitsPerPeriod - 1) / unitsPerPeriod - offset;
+    }
+
+    // How far the stamp is behind `now`. The 40-bit difference is sign-extended, so a
+    // slightly older `now` from a racing caller, or a stamp moved ahead by pending
+    // reservations, reads as negative rather than as decades of refill.
+    private static long lag(long stamp, long now) {
+        return ((now - stamp) << TOKEN_BITS) >> TOKEN_BITS;
+    }
+
+    // Returns state with tokens added for the time since its refill stamp.
+    private long refill(long state, long now) {
+        long stamp = state >>> TOKEN_BITS;
+        long units = state & TOKEN_MASK;
+        long elapsed = lag(stamp, now);
+        // A stamp ahead of `now` is a reservation: nothing refills until then.
+        if (elapsed <= 0) {
+            return state;
+        }
+        if (units == capacityUnits) {
+            return pack(now, units);
+        }
+
+        if (elapsed >= fullMillis) {
+            return pack(now, capacityUnits);
+        }
+        // Only the stamp's offset within its period matters: whole periods earn
+        // exactly unitsPerPeriod and cancel out of the difference.
+        long offset = stamp & PERIOD_MASK;
+        long added = ((offset + elapsed) * unitsPerPeriod >>> PERIOD_BITS) - (offset * unitsPerPeriod >>> PERIOD_BITS);
+        if (units + added >= capacityUnits) {
+            return pack(now, capacityUnits);
+        }
+        return pack(stamp + elapsed, units + added);
+    }
+
+    private static long pack(long millis, long units) {
+        return (millis & TIME_MASK) << TOKEN_BITS | units;
+    }
+}
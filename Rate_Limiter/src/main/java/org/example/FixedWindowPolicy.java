@@ -1,13 +1,21 @@
 package org.example;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
+/**
+ * Allows {@code maxRequests} per key in each fixed window. {@link #reserve} charges a
+ * request that does not fit the current window to the first later window with room;
+ * the key's counter then belongs to that window, and every window before it counts as
+ * full, so later callers queue behind the reservation.
+ */
 class FixedWindowPolicy implements RateLimitPolicy {
+    private static final int SWEEP_PER_REQUEST = 2;
 
     private final int maxRequests;
     private final long windowSizeMillis;
-    private final Map<String, WindowCounter> counters = new HashMap<>();
+    // Access-ordered, so the eldest entry belongs to the key that has been idle longest.
+    private final LinkedHashMap<String, WindowCounter> counters = new LinkedHashMap<>(16, 0.75f, true);
 
     public FixedWindowPolicy(int maxRequests, long windowSizeMillis) {
         this.maxRequests = maxRequests;
@@ -15,20 +23,81 @@ class FixedWindowPolicy implements RateLimitPolicy {
     }
 
     @Override
-    public boolean allowRequest(String key, long now) {
+    public boolean tryAcquire(String key, int permits, long now) {
+        sweep(now);
         long windowStart = now - (now % windowSizeMillis);
 
         WindowCounter counter = counters.get(key);
-        if (counter == null || counter.windowStart != windowStart) {
-            counters.put(key, new WindowCounter(windowStart, 1));
+        if (counter == null || counter.windowStart < windowStart) {
+            if (permits > maxRequests) {
+                return false;
+            }
+            counters.put(key, new WindowCounter(windowStart, permits));
             return true;
         }
 
-        if (counter.count < maxRequests) {
-            counter.count++;
+        if (counter.windowStart == windowStart && counter.count + permits <= maxRequests) {
+            counter.count += permits;
             return true;
         }
 
         return false;
     }
+
+    @Override
+    public long reserve(String key, int permits, long now, long maxWaitMillis) {
+        if (permits > maxRequests) {
+            return -1;
+        }
+        sweep(now);
+        long windowStart = now - (now % windowSizeMillis);
+
+        WindowCounter counter = counters.get(key);
+        if (counter == null || counter.windowStart < windowStart) {
+            counters.put(key, new WindowCounter(windowStart, permits));
+            return 0;
+        }
+        long start = counter.windowStart;
+        if (counter.count + permits > maxRequests) {
+            start += windowSizeMillis;
+        }
+        long waitMillis = Math.max(0, start - now);
+        if (waitMillis > maxWaitMillis) {
+            return -1;
+        }
+        if (start == counter.windowStart) {
+            counter.count += permits;
+        } else {
+            counter.windowStart = start;
+            counter.count = permits;
+        }
+        return waitMillis;
+    }
+
+    // Also gives back a reservation in a later window, made at the same `now`.
+    @Override
+    public void release(String key, int permits, long now) {
+        WindowCounter counter = counters.get(key);
+        if (counter != null && counter.windowStart >= now - (now % windowSizeMillis)) {
+            counter.count = Math.max(0, counter.count - permits);
+        }
+    }
+
+    // Keys currently holding state.
+    int size() {
+        return counters.size();
+    }
+
+    // A counter whose window has passed carries no information. Checking a couple of
+    // the eldest entries per request keeps the map to the keys seen in the current
+    // window without ever scanning it; removals outpace insertions.
+    private void sweep(long now) {
+        Iterator<WindowCounter> eldest = counters.values().iterator();
+        for (int i = 0; i < SWEEP_PER_REQUEST && eldest.hasNext(); i++) {
+            if (eldest.next().windowStart + windowSizeMillis > now) {
+                return;
+            }
+            eldest.remove();
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generic Cell Rate Algorithm: the only state per key is its theoretical arrival time
+ * (TAT), the time at which the key's bucket would be empty again. A request at
+ * {@code now} is allowed if {@code TAT - now <= tolerance}, and then pushes TAT one
+ * emission interval further. This gives the same decisions as a token bucket of
+ * {@code burst} tokens refilled at {@code maxRequests / periodMillis}.
+ * <p>
+ * Time is kept in units of {@code g/maxRequests} ms, where {@code g} is the greatest
+ * common divisor of {@code maxRequests} and {@code periodMillis}, so the emission
+ * interval is exactly {@code periodMillis/g} units and no rounding ever occurs. It
+ * is counted from the first {@code now} the policy sees, so wall-clock, monotonic
+ * and synthetic time sources all work, and the constructor rejects limits whose
+ * units would overflow within 2^40 ms (about 34 years) of it. TATs live in
+ * lock-striped {@link LongLongHashMap}s keyed by a 64-bit hash of the key: 16 bytes
+ * per key plus table slack, no per-key objects and no copy of the key string. Two
+ * keys whose 64-bit hashes collide would share a limit; with
+ * 50M keys the chance of any collision is below 1 in 10,000.
+ */
+class GcraPolicy implements RateLimitPolicy {
+    private static final int SWEEP_SLOTS_PER_REQUEST = 4;
+    // Keeps |now - epoch| * unitsPerMilli + the furthest TAT lead below 2^62.
+    private static final long MAX_UNITS_PER_MILLI = 1L << (61 - 40);
+    private static final long MAX_LEAD_UNITS = 1L << 61;
+    private static final long NO_EPOCH = Long.MIN_VALUE;
+
+    private final AtomicLong epochMillis = new AtomicLong(NO_EPOCH);
+    private final long unitsPerMilli;
+    private final long emissionInterval;
+    private final long tolerance;
+    private final int burst;
+    private final LongLongHashMap[] stripes;
+    private final int stripeShift;
+
+    public GcraPolicy(int maxRequests, long periodMillis) {
+        this(maxRequests, periodMillis, maxRequests);
+    }
+
+    public GcraPolicy(int maxRequests, long periodMillis, int burst) {
+        if (maxRequests <= 0 || periodMillis <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("maxRequests, periodMillis and burst must be positive");
+        }
+        long divisor = gcd(maxRequests, periodMillis);
+        this.unitsPerMilli = maxRequests / divisor;
+        this.emissionInterval = periodMillis / divisor;
+        // The furthest a TAT can run ahead of now: a full burst plus a burst-sized request.
+        double maxLead = (2.0 * burst - 1) * emissionInterval;
+        if (unitsPerMilli > MAX_UNITS_PER_MILLI || maxLead >= MAX_LEAD_UNITS) {
+            throw new IllegalArgumentException("maxRequests " + maxRequests + " per " + periodMillis
+                    + " ms with burst " + burst + " is too fine-grained to count without overflow");
+        }
+        this.tolerance = (burst - 1L) * emissionInterval;
+        this.burst = burst;
+
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4);
+        this.stripes = new LongLongHashMap[stripeCount];
+        this.stripeShift = Long.SIZE - Integer.numberOfTrailingZeros(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new LongLongHashMap();
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits, long now) {
+        long nowUnits = toUnits(now);
+        long hash = hash(key);
+        LongLongHashMap stripe = stripes[(int) (hash >>> stripeShift)];
+        if (permits > burst) {
+            return false; // More than the burst: never conforms.
+        }
+        long increment = permits * emissionInterval;
+
+        synchronized (stripe) {
+            // A TAT in the past means a full bucket, same as an unknown key.
+            stripe.sweep(SWEEP_SLOTS_PER_REQUEST, nowUnits);
+            long tat = Math.max(stripe.get(hash, Long.MIN_VALUE), nowUnits);
+            // The last of the permits would conform at tat + (permits - 1) * T.
+            if (tat + increment - emissionInterval - nowUnits > tolerance) {
+                return false;
+            }
+            stripe.put(hash, tat + increment);
+            return true;
+        }
+    }
+
+    // A reservation is just a TAT further in the future; the wait is the time until the
+    // last permit would conform.
+    @Override
+    public long reserve(String key, int permits, long now, long maxWaitMillis) {
+        long nowUnits = toUnits(now);
+        long hash = hash(key);
+        LongLongHashMap stripe = stripes[(int) (hash >>> stripeShift)];
+        if (permits > burst) {
+            return -1; // More than the burst: never conforms.
+        }
+        long increment = permits * emissionInterval;
+
+        synchronized (stripe) {
+            stripe.sweep(SWEEP_SLOTS_PER_REQUEST, nowUnits);
+            long tat = Math.max(stripe.get(hash, Long.MIN_VALUE), nowUnits);
+            long waitUnits = tat + increment - emissionInterval - tolerance - nowUnits;
+            long waitMillis = waitUnits <= 0 ? 0 : (waitUnits + unitsPerMilli - 1) / unitsPerMilli;
+            if (waitMillis > maxWaitMillis) {
+                return -1;
+            }
+            stripe.put(hash, tat + increment);
+            return waitMillis;
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public void release(String key, int permits, long now) {
+        long hash = hash(key);
+        LongLongHashMap stripe = stripes[(int) (hash >>> stripeShift)];
+        synchronized (stripe) {
+            long tat = stripe.get(hash, Long.MIN_VALUE);
+            if (tat != Long.MIN_VALUE) {
+                stripe.put(hash, tat - permits * emissionInterval);
+            }
+        }
+    }
+
+    // Keys currently holding a TAT.
+    int size() {
+        int size = 0;
+        for (LongLongHashMap stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private long toUnits(long now) {
+        long epoch = epochMillis.get();
+        if (epoch == NO_EPOCH) {
+            // The first reading anchors the time scale; racing callers agree on one.
+            epoch = epochMillis.compareAndSet(NO_EPOCH, now) ? now : epochMillis.get();
+        }
+        return (now - epoch) * unitsPerMilli;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    // FNV-1a over the chars with a murmur finalizer; String.hashCode is only 32 bits.
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
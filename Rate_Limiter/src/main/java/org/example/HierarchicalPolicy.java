@@ -0,0 +1,224 @@
+package org.example;
+
+/**
+ * Nested limits, such as global -> tenant -> user, evaluated as one decision. Request
+ * keys are paths like {@code "acme/alice"}; the tree has a node per path depth, and
+ * each node's policy is keyed by the path prefix at its depth ({@code ""} for the
+ * root, {@code "acme"}, then {@code "acme/alice"}). A node's children are chosen by
+ * path segment, with {@code "*"} as the fallback for segments without their own node:
+ * <pre>
+ * HierarchicalPolicy limits = new HierarchicalPolicy(new StripedTokenBucketPolicy(10_000, 10_000));
+ * limits.root().child("*", new ConcurrentTokenBucketPolicy(500, 500))      // any tenant
+ *              .child("*", new GcraPolicy(20, 1000));                      // any user
+ * limits.root().child("acme", new ConcurrentTokenBucketPolicy(2000, 2000)) // a bigger tenant
+ *              .child("*", new GcraPolicy(50, 1000));
+ * </pre>
+ * A request reserves its permits from the leaf up to the root and, if any level
+ * denies, releases what the levels below had already reserved. Each level keeps its
+ * own concurrent state; the root, which every request touches, should use a striped
+ * policy so it does not serialize all cores. The path is walked recursively and
+ * children are found by comparing path segments in place, so a request allocates
+ * nothing beyond the scope strings its levels are keyed by. Segments below the
+ * deepest node are ignored.
+ * <p>
+ * {@link #reserve} works the same way and waits for the slowest level. The tree is
+ * thread-safe as long as every level's policy is.
+ */
+class HierarchicalPolicy implements RateLimitPolicy {
+    private static final String WILDCARD = "*";
+
+    private final Node root;
+    private volatile boolean threadSafe;
+
+    public HierarchicalPolicy(RateLimitPolicy rootPolicy) {
+        this.root = new Node(this, rootPolicy);
+        this.threadSafe = rootPolicy.isThreadSafe();
+    }
+
+    public Node root() {
+        return root;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits, long now) {
+        return acquire(root, "", key, 0, permits, now);
+    }
+
+    @Override
+    public void release(String key, int permits, long now) {
+        release(root, "", key, 0, permits, now);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    @Override
+    public long reserve(String key, int permits, long now, long maxWaitMillis) {
+        return reserve(root, "", key, 0, permits, now, maxWaitMillis);
+    }
+
+    // Reserves from the deepest level up to node; on a denial nothing stays reserved.
+    private boolean acquire(Node node, String scope, String key, int start, int permits, long now) {
+        int end = segmentEnd(key, start);
+        Node child = node.childFor(key, start, end);
+        String childScope = child == null ? null : key.substring(0, end);
+        if (child != null && !acquire(child, childScope, key, end + 1, permits, now)) {
+            return false;
+        }
+        if (node.policy.tryAcquire(scope, permits, now)) {
+            return true;
+        }
+        if (child != null) {
+            release(child, childScope, key, end + 1, permits, now);
+        }
+        return false;
+    }
+
+    private long reserve(Node node, String scope, String key, int start, int permits, long now, long maxWaitMillis) {
+        int end = segmentEnd(key, start);
+        Node child = node.childFor(key, start, end);
+        String childScope = child == null ? null : key.substring(0, end);
+        long childWait = child == null ? 0 : reserve(child, childScope, key, end + 1, permits, now, maxWaitMillis);
+        if (childWait < 0) {
+            return -1;
+        }
+        long waitMillis = node.policy.reserve(scope, permits, now, maxWaitMillis);
+        if (waitMillis >= 0) {
+            return Math.max(waitMillis, childWait);
+        }
+        if (child != null) {
+            release(child, childScope, key, end + 1, permits, now);
+        }
+        return -1;
+    }
+
+    private void release(Node node, String scope, String key, int start, int permits, long now) {
+        node.policy.release(scope, permits, now);
+        int end = segmentEnd(key, start);
+        Node child = node.childFor(key, start, end);
+        if (child != null) {
+            release(child, key.substring(0, end), key, end + 1, permits, now);
+        }
+    }
+
+    // End of the path segment starting at start, or -1 if the path has no more segments.
+    private static int segmentEnd(String key, int start) {
+        if (start > key.length()) {
+            return -1;
+        }
+        int end = key.indexOf('/', start);
+        return end < 0 ? key.length() : end;
+    }
+
+    /** A level of the tree: the policy applied to every key that passes through it. */
+    public static final class Node {
+        private final HierarchicalPolicy owner;
+        private final RateLimitPolicy policy;
+        // Replaced whole when a child is added, so lookups need no lock.
+        private volatile ChildTable children = ChildTable.EMPTY;
+
+        private Node(HierarchicalPolicy owner, RateLimitPolicy policy) {
+            this.owner = owner;
+            this.policy = policy;
+        }
+
+        /**
+         * Adds the limit for path segment {@code segment} below this node, or for every
+         * segment without its own node when {@code segment} is {@code "*"}.
+         *
+         * @throws IllegalStateException if {@code segment} already has a limit here;
+         *         replacing it would discard that limit's state
+         */
+        public synchronized Node child(String segment, RateLimitPolicy policy) {
+            if (children.find(segment, 0, segment.length()) != null) {
+                throw new IllegalStateException("segment '" + segment + "' already has a limit");
+            }
+            Node child = new Node(owner, policy);
+            children = children.with(segment, child);
+            if (!policy.isThreadSafe()) {
+                owner.threadSafe = false;
+            }
+            return child;
+        }
+
+        private Node childFor(String key, int start, int end) {
+            ChildTable table = children;
+            if (end < 0 || table.size == 0) {
+                return null;
+            }
+            Node child = table.find(key, start, end);
+            return child != null ? child : table.find(WILDCARD, 0, WILDCARD.length());
+        }
+    }
+
+    // Open-addressed, copy-on-write map from path segment to node. Lookups hash and
+    // compare a region of the request key, so they never build a segment string.
+    private static final class ChildTable {
+        static final ChildTable EMPTY = new ChildTable(new String[2], new Node[2], 0);
+
+        final String[] segments;
+        final Node[] nodes;
+        final int size;
+
+        private ChildTable(String[] segments, Node[] nodes, int size) {
+            this.segments = segments;
+            this.nodes = nodes;
+            this.size = size;
+        }
+
+        Node find(String key, int start, int end) {
+            int length = end - start;
+            int mask = segments.length - 1;
+            for (int slot = spread(regionHash(key, start, end)) & mask; segments[slot] != null;
+                 slot = (slot + 1) & mask) {
+                String segment = segments[slot];
+                if (segment.length() == length && key.regionMatches(start, segment, 0, length)) {
+                    return nodes[slot];
+                }
+            }
+            return null;
+        }
+
+        // A copy with one more entry, kept at most half full.
+        ChildTable with(String segment, Node node) {
+            int capacity = segments.length;
+            while ((size + 1) * 2 > capacity) {
+                capacity *= 2;
+            }
+            ChildTable copy = new ChildTable(new String[capacity], new Node[capacity], size + 1);
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i] != null) {
+                    copy.insert(segments[i], nodes[i]);
+                }
+            }
+            copy.insert(segment, node);
+            return copy;
+        }
+
+        private void insert(String segment, Node node) {
+            int mask = segments.length - 1;
+            int slot = spread(segment.hashCode()) & mask;
+            while (segments[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            segments[slot] = segment;
+            nodes[slot] = node;
+        }
+
+        // Same value as key.substring(start, end).hashCode().
+        private static int regionHash(String key, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + key.charAt(i);
+            }
+            return h;
+        }
+
+        private static int spread(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example;
+
+/**
+ * Open-addressed {@code long -> long} map in two parallel arrays, for per-key state
+ * that fits in one long. Keys are 64-bit key hashes; 0 marks an empty slot, so a
+ * zero hash is stored as 1. About 16 bytes per entry plus free slots, no objects.
+ */
+class LongLongHashMap {
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int sweepCursor;
+
+    LongLongHashMap() {
+        allocate(16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Returns the value for {@code key}, or {@code absent}. */
+    long get(long key, long absent) {
+        key = normalize(key);
+        for (int slot = slotFor(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return absent;
+    }
+
+    void put(long key, long value) {
+        key = normalize(key);
+        int slot = slotFor(key);
+        for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) * 3 / 4) {
+            resize();
+        }
+    }
+
+    /**
+     * Examines the next {@code slots} slots after the previous call and removes entries
+     * whose value is at most {@code threshold}. Repeated calls walk the whole table, so
+     * stale entries are reclaimed a few slots at a time instead of in one full scan.
+     */
+    void sweep(int slots, long threshold) {
+        for (int i = 0; i < slots && size > 0; i++) {
+            int slot = sweepCursor & mask;
+            if (keys[slot] != 0 && values[slot] <= threshold) {
+                // Backward shift may move a later entry into this slot; look at it next.
+                removeAt(slot);
+            } else {
+                sweepCursor = slot + 1;
+            }
+        }
+    }
+
+    private void removeAt(int slot) {
+        size--;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slotFor(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private int slotFor(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private static long normalize(long key) {
+        return key == 0 ? 1 : key;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slotFor(oldKeys[i]);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -1,5 +1,49 @@
 package org.example;
 
 interface RateLimitPolicy {
-    boolean allowRequest(String key, long currentTimeMillis);
+    /** Takes {@code permits} from {@code key}'s limit if all of them are available. */
+    boolean tryAcquire(String key, int permits, long currentTimeMillis);
+
+    /**
+     * Gives back permits taken by a successful {@link #tryAcquire} at the same
+     * {@code currentTimeMillis}; used to roll back a multi-key acquisition.
+     */
+    void release(String key, int permits, long currentTimeMillis);
+
+    /**
+     * Takes {@code permits} now even if they only become available later, and returns
+     * how many milliseconds the caller must wait before using them (0 if available
+     * now). Returns -1 and reserves nothing if that wait would exceed
+     * {@code maxWaitMillis}. {@link #release} at the same {@code currentTimeMillis}
+     * gives a reservation back.
+     */
+    long reserve(String key, int permits, long currentTimeMillis, long maxWaitMillis);
+
+    /**
+     * Whether calls may come from several threads at once. {@link RateLimiter}
+     * serializes its calls into policies that are not.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    default boolean allowRequest(String key, long currentTimeMillis) {
+        return tryAcquire(key, 1, currentTimeMillis);
+    }
+
+    /**
+     * Takes {@code permits} from every key or from none: keys are acquired in order
+     * and, on the first denial, the ones already taken are released again.
+     */
+    default boolean tryAcquireAll(String[] keys, int permits, long currentTimeMillis) {
+        for (int i = 0; i < keys.length; i++) {
+            if (!tryAcquire(keys[i], permits, currentTimeMillis)) {
+                for (int j = i - 1; j >= 0; j--) {
+                    release(keys[j], permits, currentTimeMillis);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
 }
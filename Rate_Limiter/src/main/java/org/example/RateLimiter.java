@@ -1,5 +1,17 @@
 package org.example;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Entry point for rate-limit decisions. Calls into a policy that is not
+ * {@linkplain RateLimitPolicy#isThreadSafe() thread-safe} are serialized on the policy,
+ * so the limiter can be shared and async cancellation can give reservations back from
+ * any thread.
+ */
 public class RateLimiter {
 
     private final RateLimitPolicy policy;
@@ -9,8 +21,119 @@ public class RateLimiter {
     }
 
     public boolean allowRequest(String key) {
+        return tryAcquire(key, 1);
+    }
+
+    /** Charges a request that costs {@code permits}; all of them or nothing. */
+    public boolean tryAcquire(String key, int permits) {
+        checkPermits(permits);
         long now = System.currentTimeMillis();
-        return policy.allowRequest(key, now);
+        if (policy.isThreadSafe()) {
+            return policy.tryAcquire(key, permits, now);
+        }
+        synchronized (policy) {
+            return policy.tryAcquire(key, permits, now);
+        }
     }
-}
 
+    /**
+     * Charges {@code permits} against every key (e.g. user, tenant and route) at one
+     * clock reading. Either every limit has room and all are charged, or the request
+     * is denied and none is.
+     */
+    public boolean tryAcquireAll(int permits, String... keys) {
+        checkPermits(permits);
+        long now = System.currentTimeMillis();
+        if (policy.isThreadSafe()) {
+            return policy.tryAcquireAll(keys, permits, now);
+        }
+        synchronized (policy) {
+            return policy.tryAcquireAll(keys, permits, now);
+        }
+    }
+
+    /**
+     * Waits until {@code permits} are available, for at most {@code timeout}. The wait
+     * is computed from the policy state and the permits are reserved up front, so the
+     * caller parks exactly once instead of polling; returns false without waiting or
+     * reserving if the wait would exceed the timeout. Parking a virtual thread
+     * (Java 21+) releases its carrier. If interrupted, the reservation is given back.
+     */
+    public boolean acquire(String key, int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        checkPermits(permits);
+        long now = System.currentTimeMillis();
+        long waitMillis = reserve(key, permits, now, unit.toMillis(timeout));
+        if (waitMillis < 0) {
+            return false;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        for (long remaining = waitMillis > 0 ? deadline - System.nanoTime() : 0; remaining > 0;
+             remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                release(key, permits, now);
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Non-blocking {@link #acquire}: reserves the permits now and returns a future that
+     * is completed with {@code true} once they may be used, or an already completed
+     * {@code false} if the wait would exceed the timeout. Completing the future any
+     * other way than the grant, e.g. cancelling it, gives the reservation back. Delayed
+     * completions, and the dependent stages they run, execute in the common pool, never
+     * on the shared timer thread.
+     */
+    public CompletableFuture<Boolean> acquireAsync(String key, int permits, long timeout, TimeUnit unit) {
+        return acquireAsync(key, permits, timeout, unit, ForkJoinPool.commonPool());
+    }
+
+    /** {@link #acquireAsync(String, int, long, TimeUnit)} completing delayed grants on {@code executor}. */
+    public CompletableFuture<Boolean> acquireAsync(String key, int permits, long timeout, TimeUnit unit,
+                                                   Executor executor) {
+        checkPermits(permits);
+        long now = System.currentTimeMillis();
+        long waitMillis = reserve(key, permits, now, unit.toMillis(timeout));
+        if (waitMillis <= 0) {
+            return CompletableFuture.completedFuture(waitMillis == 0);
+        }
+
+        CompletableFuture<Boolean> granted = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(waitMillis, TimeUnit.MILLISECONDS, executor)
+                .execute(() -> granted.complete(true));
+        granted.whenComplete((result, failure) -> {
+            if (failure != null || !result) {
+                release(key, permits, now);
+            }
+        });
+        return granted;
+    }
+
+    private long reserve(String key, int permits, long now, long maxWaitMillis) {
+        if (policy.isThreadSafe()) {
+            return policy.reserve(key, permits, now, maxWaitMillis);
+        }
+        synchronized (policy) {
+            return policy.reserve(key, permits, now, maxWaitMillis);
+        }
+    }
+
+    private void release(String key, int permits, long now) {
+        if (policy.isThreadSafe()) {
+            policy.release(key, permits, now);
+            return;
+        }
+        synchronized (policy) {
+            policy.release(key, permits, now);
+        }
+    }
+
+    private static void checkPermits(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example;
+
+/** Ring buffer of the most recent admitted request timestamps, oldest at {@code head}. */
+class RequestLog {
+    long[] timestamps;
+    int head;
+    int size;
+
+    RequestLog(int initialCapacity) {
+        this.timestamps = new long[initialCapacity];
+    }
+}
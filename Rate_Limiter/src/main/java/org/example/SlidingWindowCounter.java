@@ -0,0 +1,11 @@
+package org.example;
+
+class SlidingWindowCounter {
+    long windowStart;
+    int previousCount;
+    int currentCount;
+
+    SlidingWindowCounter(long windowStart) {
+        this.windowStart = windowStart;
+    }
+}
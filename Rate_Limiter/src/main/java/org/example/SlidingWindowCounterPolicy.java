@@ -0,0 +1,128 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Approximates a sliding window from two fixed-window counts: the previous window's
+ * count is weighted by how much of it still overlaps the sliding window ending now.
+ * This removes the 2x burst a fixed window allows at its boundary while keeping two
+ * ints per key. {@link #reserve} charges a request to the first moment the weighted
+ * count leaves room for it, possibly in a later window; the counter then belongs to
+ * that window and other callers queue behind it.
+ */
+class SlidingWindowCounterPolicy implements RateLimitPolicy {
+    private static final int SWEEP_PER_REQUEST = 2;
+
+    private final int maxRequests;
+    private final long windowSizeMillis;
+    private final LinkedHashMap<String, SlidingWindowCounter> counters = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SlidingWindowCounterPolicy(int maxRequests, long windowSizeMillis) {
+        this.maxRequests = maxRequests;
+        this.windowSizeMillis = windowSizeMillis;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits, long now) {
+        sweep(now);
+        long windowStart = now - (now % windowSizeMillis);
+
+        SlidingWindowCounter counter = counterFor(key, windowStart);
+        if (counter.windowStart > windowStart) {
+            return false; // Reserved into a later window: queue behind it.
+        }
+
+        // previous * overlap / window + current + permits <= max, kept in integers.
+        long overlap = windowSizeMillis - (now - windowStart);
+        long weighted = counter.previousCount * overlap + ((long) counter.currentCount + permits) * windowSizeMillis;
+        if (weighted <= maxRequests * windowSizeMillis) {
+            counter.currentCount += permits;
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public long reserve(String key, int permits, long now, long maxWaitMillis) {
+        if (permits > maxRequests) {
+            return -1;
+        }
+        sweep(now);
+        SlidingWindowCounter counter = counterFor(key, now - (now % windowSizeMillis));
+
+        // Walk forward from the counter's window until the previous window's share,
+        // shrinking as the sliding window moves on, leaves room. The second window
+        // forward has no previous count, so the loop ends there at the latest.
+        long start = counter.windowStart;
+        long previous = counter.previousCount;
+        long current = counter.currentCount;
+        long at;
+        while (true) {
+            long slack = (maxRequests - current - permits) * windowSizeMillis;
+            if (slack >= 0) {
+                // Smallest elapsed with previous * (window - elapsed) <= slack.
+                long elapsed = previous == 0 ? 0 : Math.max(0, windowSizeMillis - slack / previous);
+                if (elapsed < windowSizeMillis) {
+                    at = Math.max(now, start + elapsed);
+                    break;
+                }
+            }
+            previous = current;
+            current = 0;
+            start += windowSizeMillis;
+        }
+
+        long waitMillis = at - now;
+        if (waitMillis > maxWaitMillis) {
+            return -1;
+        }
+        counter.windowStart = start;
+        counter.previousCount = (int) previous;
+        counter.currentCount = (int) current + permits;
+        return waitMillis;
+    }
+
+    // Also gives back a reservation in a later window, made at the same `now`.
+    @Override
+    public void release(String key, int permits, long now) {
+        SlidingWindowCounter counter = counters.get(key);
+        if (counter != null && counter.windowStart >= now - (now % windowSizeMillis)) {
+            counter.currentCount = Math.max(0, counter.currentCount - permits);
+        }
+    }
+
+    // Returns the key's counter, rolled forward to windowStart unless it is already
+    // there or in a later, reserved window.
+    private SlidingWindowCounter counterFor(String key, long windowStart) {
+        SlidingWindowCounter counter = counters.get(key);
+        if (counter == null) {
+            counter = new SlidingWindowCounter(windowStart);
+            counters.put(key, counter);
+        } else if (counter.windowStart < windowStart) {
+            // The old current window becomes the previous one only if it is adjacent.
+            boolean adjacent = windowStart - counter.windowStart == windowSizeMillis;
+            counter.previousCount = adjacent ? counter.currentCount : 0;
+            counter.currentCount = 0;
+            counter.windowStart = windowStart;
+        }
+        return counter;
+    }
+
+    // Keys currently holding state.
+    int size() {
+        return counters.size();
+    }
+
+    // Idle once both the current and the previous window have passed.
+    private void sweep(long now) {
+        Iterator<SlidingWindowCounter> eldest = counters.values().iterator();
+        for (int i = 0; i < SWEEP_PER_REQUEST && eldest.hasNext(); i++) {
+            if (eldest.next().windowStart + 2 * windowSizeMillis > now) {
+                return;
+            }
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Exact sliding window: a request is allowed if fewer than {@code maxRequests} requests
+ * were admitted in the last {@code windowSizeMillis}. Only the last {@code maxRequests}
+ * admitted timestamps can matter, so each key keeps them in a {@code long[]} ring
+ * buffer; the decision just compares the oldest of them with the window start.
+ * The buffer grows by doubling up to {@code maxRequests}, so quiet keys stay small.
+ * {@link #reserve} logs a request at the time it may proceed, when enough of the
+ * oldest entries have aged out; entries stay in time order because later callers
+ * queue behind logged future times.
+ */
+class SlidingWindowLogPolicy implements RateLimitPolicy {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int SWEEP_PER_REQUEST = 2;
+
+    private final int maxRequests;
+    private final long windowSizeMillis;
+    private final LinkedHashMap<String, RequestLog> logs = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SlidingWindowLogPolicy(int maxRequests, long windowSizeMillis) {
+        this.maxRequests = maxRequests;
+        this.windowSizeMillis = windowSizeMillis;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits, long now) {
+        sweep(now);
+        if (permits > maxRequests) {
+            return false;
+        }
+        RequestLog log = logFor(key, permits);
+        if (availableAt(log, permits, now) > now) {
+            return false;
+        }
+        record(log, permits, now);
+        return true;
+    }
+
+    @Override
+    public long reserve(String key, int permits, long now, long maxWaitMillis) {
+        sweep(now);
+        if (permits > maxRequests) {
+            return -1;
+        }
+        RequestLog log = logFor(key, permits);
+        long at = availableAt(log, permits, now);
+        if (at - now > maxWaitMillis) {
+            return -1;
+        }
+        record(log, permits, at);
+        return at - now;
+    }
+
+    // Drops the newest entries. In a full log each of them took the slot of an older
+    // admission, which a reservation may have displaced while it was still inside the
+    // window. The slot then becomes the oldest entry again, stamped a window before the
+    // dropped one (at least as late as the displaced admission) but no later than the
+    // entry after it, so the admission is never forgotten early.
+    @Override
+    public void release(String key, int permits, long now) {
+        RequestLog log = logs.get(key);
+        if (log == null) {
+            return;
+        }
+        for (int i = 0; i < permits && log.size > 0; i++) {
+            if (log.size < maxRequests) {
+                log.size--;
+                continue;
+            }
+            int newest = (log.head + maxRequests - 1) % maxRequests;
+            long restored = Math.min(log.timestamps[newest] - windowSizeMillis, log.timestamps[log.head]);
+            log.timestamps[newest] = restored;
+            log.head = newest;
+        }
+    }
+
+    // Keys currently holding state.
+    int size() {
+        return logs.size();
+    }
+
+    private RequestLog logFor(String key, int permits) {
+        RequestLog log = logs.get(key);
+        if (log == null) {
+            log = new RequestLog(Math.min(Math.max(INITIAL_CAPACITY, permits), maxRequests));
+            logs.put(key, log);
+        }
+        return log;
+    }
+
+    // Earliest time from now on at which permits fit: the `overflow` oldest admissions
+    // must have left the window, and no logged reservation may be later.
+    private long availableAt(RequestLog log, int permits, long now) {
+        long at = now;
+        if (log.size > 0) {
+            at = Math.max(at, log.timestamps[(log.head + log.size - 1) % log.timestamps.length]);
+        }
+        int overflow = log.size + permits - maxRequests;
+        if (overflow > 0) {
+            long youngestDisplaced = log.timestamps[(log.head + overflow - 1) % log.timestamps.length];
+            at = Math.max(at, youngestDisplaced + windowSizeMillis);
+        }
+        return at;
+    }
+
+    private void record(RequestLog log, int permits, long at) {
+        for (int i = 0; i < permits; i++) {
+            if (log.size == maxRequests) {
+                // The oldest admission has left the window; its slot takes this one.
+                log.timestamps[log.head] = at;
+                log.head = (log.head + 1) % maxRequests;
+                continue;
+            }
+            if (log.size == log.timestamps.length) {
+                grow(log);
+            }
+            log.timestamps[(log.head + log.size) % log.timestamps.length] = at;
+            log.size++;
+        }
+    }
+
+    // Idle once the newest admitted timestamp has left the window.
+    private void sweep(long now) {
+        Iterator<RequestLog> eldest = logs.values().iterator();
+        for (int i = 0; i < SWEEP_PER_REQUEST && eldest.hasNext(); i++) {
+            RequestLog log = eldest.next();
+            if (log.size == 0) {
+                eldest.remove();
+                continue;
+            }
+            long newest = log.timestamps[(log.head + log.size - 1) % log.timestamps.length];
+            if (newest > now - windowSizeMillis) {
+                return;
+            }
+            eldest.remove();
+        }
+    }
+
+    private void grow(RequestLog log) {
+        long[] grown = new long[Math.min(log.timestamps.length * 2, maxRequests)];
+        for (int i = 0; i < log.size; i++) {
+            grown[i] = log.timestamps[(log.head + i) % log.timestamps.length];
+        }
+        log.timestamps = grown;
+        log.head = 0;
+    }
+}
@@ -0,0 +1,160 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A token bucket for keys that every request hits, such as a global limit. One
+ * {@link ConcurrentTokenBucketPolicy} would make all cores CAS the same word, so the
+ * budget is split into stripes, each with its share of the capacity and refill rate.
+ * A caller draws from its thread's home stripe and only probes the others when that
+ * one runs dry, so the total never exceeds the configured limit. A request that no
+ * single stripe can cover, e.g. more permits than one stripe's share, gathers them
+ * from several stripes and puts them back if the total falls short.
+ * <p>
+ * Released permits go back into stripes that have room, starting at the home stripe,
+ * so no stripe ever holds more than its share and no permit is lost while the total
+ * is below capacity. Tokens are interchangeable, so which stripe gets them back does
+ * not change how many requests the total admits.
+ * <p>
+ * {@link #reserve} takes every whole token the stripes hold, queues the shortfall
+ * evenly over the stripes (the remainder on those that earn a token soonest) and
+ * returns the slowest part's wait. Tokens are only whole per stripe and each stripe
+ * refills at {@code rate / N}, so the wait is an upper bound: at most {@code 2N / rate}
+ * longer than one unstriped bucket's exact wait, N for fractions of a token stranded
+ * on the stripes and N for the granularity of the split.
+ */
+class StripedTokenBucketPolicy implements RateLimitPolicy {
+
+    private final ConcurrentTokenBucketPolicy[] stripes;
+    private final int stripeMask;
+    private final int capacity;
+
+    public StripedTokenBucketPolicy(int capacity, double refillRatePerSecond) {
+        this(capacity, refillRatePerSecond, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public StripedTokenBucketPolicy(int capacity, double refillRatePerSecond, int concurrencyLevel) {
+        // Power of two, and at least one token per stripe.
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(concurrencyLevel, capacity)));
+        this.stripes = new ConcurrentTokenBucketPolicy[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        this.capacity = capacity;
+        for (int i = 0; i < stripeCount; i++) {
+            int share = capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0);
+            stripes[i] = new ConcurrentTokenBucketPolicy(share, refillRatePerSecond / stripeCount);
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int permits, long now) {
+        int home = homeStripe();
+        for (int i = 0; i <= stripeMask; i++) {
+            if (stripes[(home + i) & stripeMask].tryAcquire(key, permits, now)) {
+                return true;
+            }
+        }
+        return permits > 1 && stripes.length > 1 && gather(home, key, permits, now);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public void release(String key, int permits, long now) {
+        int home = homeStripe();
+        int remaining = permits;
+        for (int i = 0; i <= stripeMask && remaining > 0; i++) {
+            remaining -= stripes[(home + i) & stripeMask].releaseUpTo(key, remaining, now);
+        }
+    }
+
+    @Override
+    public long reserve(String key, int permits, long now, long maxWaitMillis) {
+        if (permits > capacity) {
+            return -1;
+        }
+        // Every whole token the stripes hold goes first, as in tryAcquire.
+        int[] taken = new int[stripes.length];
+        int missing = permits;
+        int home = homeStripe();
+        for (int i = 0; i <= stripeMask && missing > 0; i++) {
+            int stripe = (home + i) & stripeMask;
+            taken[stripe] = stripes[stripe].tryAcquireUpTo(key, missing, now);
+            missing -= taken[stripe];
+        }
+        if (missing == 0) {
+            return 0;
+        }
+
+        int[] queued = split(key, missing, now);
+        long waitMillis = 0;
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            long partWait = queued[stripe] == 0 ? 0 : stripes[stripe].reserve(key, queued[stripe], now, maxWaitMillis);
+            if (partWait < 0) {
+                for (int i = 0; i <= stripeMask; i++) {
+                    int reserved = taken[i] + (i < stripe ? queued[i] : 0);
+                    if (reserved > 0) {
+                        stripes[i].release(key, reserved, now);
+                    }
+                }
+                return -1;
+            }
+            waitMillis = Math.max(waitMillis, partWait);
+        }
+        return waitMillis;
+    }
+
+    // Splits a shortfall evenly over the stripes and gives the remainder to those that
+    // will have the next token soonest, so their queues stay level. A stripe whose
+    // share is too small for an extra permit never gets one; a shortfall within the
+    // total capacity always fits the others.
+    private int[] split(String key, int missing, long now) {
+        int[] parts = new int[stripes.length];
+        int even = missing / stripes.length;
+        Arrays.fill(parts, even);
+        int extra = missing % stripes.length;
+        if (extra == 0) {
+            return parts;
+        }
+        long[] waits = new long[stripes.length];
+        Integer[] order = new Integer[stripes.length];
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            long wait = stripes[stripe].waitMillis(key, even + 1, now);
+            waits[stripe] = wait < 0 ? Long.MAX_VALUE : wait;
+            order[stripe] = stripe;
+        }
+        Arrays.sort(order, Comparator.comparingLong(stripe -> waits[stripe]));
+        for (int i = 0; i < extra; i++) {
+            parts[order[i]]++;
+        }
+        return parts;
+    }
+
+    // Slow path for requests no single stripe could cover: all or nothing across stripes.
+    private boolean gather(int home, String key, int permits, long now) {
+        int[] taken = new int[stripes.length];
+        int remaining = permits;
+        for (int i = 0; i <= stripeMask; i++) {
+            int stripe = (home + i) & stripeMask;
+            taken[stripe] = stripes[stripe].tryAcquireUpTo(key, remaining, now);
+            remaining -= taken[stripe];
+            if (remaining == 0) {
+                return true;
+            }
+        }
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            if (taken[stripe] > 0) {
+                stripes[stripe].release(key, taken[stripe], now);
+            }
+        }
+        return false;
+    }
+
+    private int homeStripe() {
+        long threadId = Thread.currentThread().getId();
+        return (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+    }
+}
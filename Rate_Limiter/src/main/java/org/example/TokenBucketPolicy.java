@@ -1,13 +1,15 @@
 package org.example;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 class TokenBucketPolicy implements RateLimitPolicy {
+    private static final int SWEEP_PER_REQUEST = 2;
 
     private final int capacity;
     private final double refillRatePerMillis;
-    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    // Access-ordered, so the eldest entry belongs to the key that has been idle longest.
+    private final LinkedHashMap<String, TokenBucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
 
     public TokenBucketPolicy(int capacity, double refillRatePerSecond) {
         this.capacity = capacity;
@@ -15,7 +17,8 @@ class TokenBucketPolicy implements RateLimitPolicy {
     }
 
     @Override
-    public boolean allowRequest(String key, long now) {
+    public boolean tryAcquire(String key, int permits, long now) {
+        sweep(now);
         TokenBucket bucket = buckets.get(key);
 
         if (bucket == null) {
@@ -25,14 +28,65 @@ class TokenBucketPolicy implements RateLimitPolicy {
 
         refill(bucket, now);
 
-        if (bucket.tokens >= 1) {
-            bucket.tokens -= 1;
+        if (bucket.tokens >= permits) {
+            bucket.tokens -= permits;
             return true;
         }
 
         return false;
     }
 
+    // Lets the balance go negative: the debt is repaid by refill before anyone else
+    // sees a token, so reservations are granted strictly in order.
+    @Override
+    public long reserve(String key, int permits, long now, long maxWaitMillis) {
+        if (permits > capacity) {
+            return -1;
+        }
+        sweep(now);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new TokenBucket(capacity, now);
+            buckets.put(key, bucket);
+        }
+        refill(bucket, now);
+
+        double missing = permits - bucket.tokens;
+        long waitMillis = missing <= 0 ? 0 : (long) Math.ceil(missing / refillRatePerMillis);
+        if (waitMillis > maxWaitMillis) {
+            return -1;
+        }
+        bucket.tokens -= permits;
+        return waitMillis;
+    }
+
+    @Override
+    public void release(String key, int permits, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.tokens = Math.min(capacity, bucket.tokens + permits);
+        }
+    }
+
+    // Keys currently holding state.
+    int size() {
+        return buckets.size();
+    }
+
+    // A bucket that has refilled to capacity is indistinguishable from a new one, so
+    // dropping it loses nothing. The eldest bucket is full at most capacity / rate
+    // after its last request, which bounds the map to recently active keys.
+    private void sweep(long now) {
+        Iterator<TokenBucket> eldest = buckets.values().iterator();
+        for (int i = 0; i < SWEEP_PER_REQUEST && eldest.hasNext(); i++) {
+            TokenBucket bucket = eldest.next();
+            if (bucket.tokens + (now - bucket.lastRefillTimestamp) * refillRatePerMillis < capacity) {
+                return;
+            }
+            eldest.remove();
+        }
+    }
+
     private void refill(TokenBucket bucket, long now) {
         long elapsedMillis = now - bucket.lastRefillTimestamp;
         if (elapsedMillis <= 0) {
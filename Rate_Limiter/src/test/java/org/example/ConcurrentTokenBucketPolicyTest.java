@@ -0,0 +1,150 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentTokenBucketPolicyTest {
+    private static final long START = 1_700_000_000_000L;
+
+    // Polls every millisecond for 100 s from an empty bucket, so refills are as
+    // fragmented as they can get; the total must still match the configured rate.
+    @ParameterizedTest
+    @CsvSource({
+            "1000, 1500",
+            "100000, 1300.3",
+            "5000000, 7777",
+            "16000000, 1500",
+            "16000000, 1300.3",
+            "10, 0.5",
+    })
+    void sustainedRateMatchesConfiguredRate(int capacity, double ratePerSecond) {
+        ConcurrentTokenBucketPolicy policy = new ConcurrentTokenBucketPolicy(capacity, ratePerSecond);
+        policy.tryAcquire("k", capacity, START);
+
+        long durationMillis = TimeUnit.SECONDS.toMillis(100);
+        long admitted = 0;
+        for (long now = START; now <= START + durationMillis; now++) {
+            while (policy.tryAcquire("k", 1, now)) {
+                admitted++;
+            }
+        }
+
+        double expected = ratePerSecond * durationMillis / 1000.0;
+        assertEquals(expected, admitted, Math.max(1, expected * 0.001));
+    }
+
+    @Test
+    void concurrentCallersNeverExceedBurstPlusRefill() throws Exception {
+        int capacity = 100;
+        double ratePerSecond = 1000;
+        ConcurrentTokenBucketPolicy policy = new ConcurrentTokenBucketPolicy(capacity, ratePerSecond);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            long start = System.currentTimeMillis();
+            long end = start + 1000;
+            List<Callable<Long>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                callers.add(() -> {
+                    long admitted = 0;
+                    for (long now; (now = System.currentTimeMillis()) < end; ) {
+                        if (policy.tryAcquire("k", 1, now)) {
+                            admitted++;
+                        }
+                    }
+                    return admitted;
+                });
+            }
+            long admitted = 0;
+            for (Future<Long> future : pool.invokeAll(callers)) {
+                admitted += future.get();
+            }
+
+            long bound = capacity + (long) Math.ceil(ratePerSecond * (end - start) / 1000.0);
+            assertTrue(admitted <= bound, admitted + " > " + bound);
+            assertTrue(admitted >= bound * 9 / 10, "admitted only " + admitted + " of " + bound);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // 15.625/s is one token per 64 ms with no rounding on the refill grid.
+    @Test
+    void reservationsQueueBehindEachOther() {
+        ConcurrentTokenBucketPolicy policy = new ConcurrentTokenBucketPolicy(4, 15.625);
+        assertTrue(policy.tryAcquire("k", 4, START));
+
+        assertEquals(64, policy.reserve("k", 1, START, 1000));
+        assertEquals(128, policy.reserve("k", 1, START, 1000));
+        assertEquals(256, policy.reserve("k", 2, START + 10, 1000) + 10);
+        assertEquals(-1, policy.reserve("k", 1, START, 300));
+        assertEquals(-1, policy.reserve("k", 5, START, Long.MAX_VALUE));
+
+        assertFalse(policy.tryAcquire("k", 1, START + 300));
+        assertTrue(policy.tryAcquire("k", 1, START + 320));
+    }
+
+    @Test
+    void releasedReservationCancelsItsDebt() {
+        ConcurrentTokenBucketPolicy policy = new ConcurrentTokenBucketPolicy(4, 15.625);
+        assertTrue(policy.tryAcquire("k", 4, START));
+        assertEquals(64, policy.reserve("k", 1, START, 1000));
+        assertEquals(128, policy.reserve("k", 1, START, 1000));
+
+        policy.release("k", 1, START + 10);
+
+        assertFalse(policy.tryAcquire("k", 1, START + 63)); // still no burst beyond capacity
+        assertEquals(118, policy.reserve("k", 1, START + 10, 1000));
+        policy.release("k", 2, START + 10);
+        assertFalse(policy.tryAcquire("k", 1, START + 63));
+        assertTrue(policy.tryAcquire("k", 1, START + 64));
+        assertFalse(policy.tryAcquire("k", 1, START + 64));
+    }
+
+    // Every reservation must get its own slot: n concurrent reservations on a full
+    // bucket wait 0 (burst) and then exactly 64, 128, ... ms.
+    @Test
+    void concurrentReservationsGetDistinctSlots() throws Exception {
+        int capacity = 4;
+        int threads = 8;
+        int perThread = 250;
+        ConcurrentTokenBucketPolicy policy = new ConcurrentTokenBucketPolicy(capacity, 15.625);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                Callable<long[]> caller = () -> {
+                    long[] waits = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        waits[i] = policy.reserve("k", 1, START, Long.MAX_VALUE);
+                    }
+                    return waits;
+                };
+                results.add(pool.submit(caller));
+            }
+            long[] waits = new long[threads * perThread];
+            for (int t = 0; t < threads; t++) {
+                System.arraycopy(results.get(t).get(), 0, waits, t * perThread, perThread);
+            }
+            Arrays.sort(waits);
+            for (int i = 0; i < waits.length; i++) {
+                assertEquals(Math.max(0, i - capacity + 1) * 64L, waits[i]);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixedWindowPolicyTest {
+    private static final long NOW = 1_000_000; // a window boundary
+
+    @Test
+    void reserveWaitsForTheNextWindow() {
+        FixedWindowPolicy policy = new FixedWindowPolicy(2, 1000);
+
+        assertEquals(0, policy.reserve("k", 1, NOW + 300, 1000));
+        assertEquals(0, policy.reserve("k", 1, NOW + 300, 1000));
+        assertEquals(700, policy.reserve("k", 1, NOW + 300, 1000));
+        assertEquals(700, policy.reserve("k", 1, NOW + 300, 1000));
+        assertEquals(-1, policy.reserve("k", 1, NOW + 300, 1000)); // the window after is 1700 ms off
+        assertEquals(-1, policy.reserve("k", 3, NOW + 300, Long.MAX_VALUE));
+
+        assertFalse(policy.tryAcquire("k", 1, NOW + 500)); // queued behind the reservations
+        assertFalse(policy.tryAcquire("k", 1, NOW + 1000));
+    }
+
+    @Test
+    void releaseGivesBackAReservationInTheNextWindow() {
+        FixedWindowPolicy policy = new FixedWindowPolicy(1, 1000);
+        assertTrue(policy.tryAcquire("k", 1, NOW));
+        assertEquals(700, policy.reserve("k", 1, NOW + 300, 1000));
+
+        policy.release("k", 1, NOW + 300);
+
+        assertTrue(policy.tryAcquire("k", 1, NOW + 1000));
+        assertFalse(policy.tryAcquire("k", 1, NOW + 1000));
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GcraPolicyTest {
+
+    @Test
+    void highRateLimitDoesNotOverflow() {
+        GcraPolicy policy = new GcraPolicy(10_000_000, 3_600_000L, 5);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(policy.tryAcquire("k", 1, now));
+        }
+        assertFalse(policy.tryAcquire("k", 1, now));
+        assertEquals(1, policy.reserve("k", 1, now, 1000));
+    }
+
+    // Readings from a monotonic or synthetic clock can be anywhere. Counted from the
+    // wall clock at construction, these would cross 2^63 units mid-scan.
+    @Test
+    void timeIsCountedFromTheFirstReadingSeen() {
+        int unitsPerMilli = 1_048_573; // coprime with the period, so one unit is 1/1,048,573 ms
+        GcraPolicy policy = new GcraPolicy(unitsPerMilli, 1_000_000_000L, 5);
+        long start = System.currentTimeMillis() + Long.MAX_VALUE / unitsPerMilli - 100;
+
+        int admitted = 0;
+        for (long now = start; now < start + 200; now++) {
+            for (int i = 0; i < 10; i++) {
+                if (policy.tryAcquire("k", 1, now)) {
+                    admitted++;
+                }
+            }
+        }
+        assertEquals(5, admitted);
+    }
+
+    @Test
+    void limitTooFineGrainedIsRejectedAtConstruction() {
+        // 2^31 - 1 is prime, so no common divisor shrinks the time unit.
+        assertThrows(IllegalArgumentException.class, () -> new GcraPolicy(Integer.MAX_VALUE, 1000));
+    }
+
+    @Test
+    void matchesTokenBucketOfBurstSize() {
+        GcraPolicy gcra = new GcraPolicy(7, 1000, 3);
+        TokenBucketPolicy bucket = new TokenBucketPolicy(3, 7);
+        for (long now = 0; now < 10_000; now += 37) {
+            assertEquals(bucket.tryAcquire("k", 1, now), gcra.tryAcquire("k", 1, now), "at " + now);
+        }
+    }
+
+    @Test
+    void requestLargerThanBurstNeverConforms() {
+        GcraPolicy policy = new GcraPolicy(10, 1000, 4);
+
+        assertFalse(policy.tryAcquire("k", 5, 0));
+        assertEquals(-1, policy.reserve("k", 5, 0, Long.MAX_VALUE));
+        assertTrue(policy.tryAcquire("k", 4, 0));
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalPolicyTest {
+    private static final long NOW = 1_000_000;
+
+    @Test
+    void everyLevelMustAdmit() {
+        HierarchicalPolicy limits = new HierarchicalPolicy(new TokenBucketPolicy(100, 1));
+        limits.root().child("*", new TokenBucketPolicy(3, 1))
+                .child("*", new TokenBucketPolicy(2, 1));
+
+        assertTrue(limits.tryAcquire("acme/alice", 1, NOW));
+        assertTrue(limits.tryAcquire("acme/alice", 1, NOW));
+        assertFalse(limits.tryAcquire("acme/alice", 1, NOW)); // user limit
+        assertTrue(limits.tryAcquire("acme/bob", 1, NOW));
+        assertFalse(limits.tryAcquire("acme/carol", 1, NOW)); // tenant limit
+        assertTrue(limits.tryAcquire("other/carol", 1, NOW));
+    }
+
+    @Test
+    void denialReleasesLowerLevels() {
+        HierarchicalPolicy limits = new HierarchicalPolicy(new TokenBucketPolicy(1, 1));
+        limits.root().child("*", new TokenBucketPolicy(1, 1));
+
+        assertTrue(limits.tryAcquire("a", 1, NOW));
+        assertFalse(limits.tryAcquire("b", 1, NOW)); // root is empty; b's permit goes back
+        limits.release("a", 1, NOW);
+        assertTrue(limits.tryAcquire("b", 1, NOW));
+    }
+
+    @Test
+    void segmentsBelowTheTreeAreIgnored() {
+        HierarchicalPolicy limits = new HierarchicalPolicy(new TokenBucketPolicy(1, 1));
+        limits.root().child("*", new TokenBucketPolicy(5, 1));
+
+        assertTrue(limits.tryAcquire("a/b/c/d/e/f/g/h/i/j/k/l/m/n/o/p/q/r/s/t", 1, NOW));
+        assertFalse(limits.tryAcquire("a", 1, NOW));
+    }
+
+    @Test
+    void namedSegmentsAreFoundAmongMany() {
+        HierarchicalPolicy limits = new HierarchicalPolicy(new TokenBucketPolicy(1000, 1));
+        for (int i = 0; i < 100; i++) {
+            limits.root().child("t" + i, new TokenBucketPolicy(i + 1, 1));
+        }
+        limits.root().child("*", new TokenBucketPolicy(1, 1));
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limits.tryAcquire("t5/alice", 1, NOW));
+        }
+        assertFalse(limits.tryAcquire("t5/bob", 1, NOW));
+        assertTrue(limits.tryAcquire("t50", 1, NOW));
+        assertTrue(limits.tryAcquire("t5x", 1, NOW)); // the wildcard's limit of 1, not t5's
+        assertFalse(limits.tryAcquire("t5x", 1, NOW));
+    }
+
+    @Test
+    void childRefusesToReplaceAnExistingLimit() {
+        HierarchicalPolicy limits = new HierarchicalPolicy(new TokenBucketPolicy(1, 1));
+        limits.root().child("acme", new TokenBucketPolicy(1, 1));
+
+        assertThrows(IllegalStateException.class,
+                () -> limits.root().child("acme", new TokenBucketPolicy(5, 1)));
+    }
+
+    // One token per 128 ms at the root and per 64 ms at the leaf, both exact.
+    @Test
+    void reserveWaitsForTheSlowestLevel() {
+        HierarchicalPolicy limits = new HierarchicalPolicy(new ConcurrentTokenBucketPolicy(1, 7.8125));
+        limits.root().child("*", new ConcurrentTokenBucketPolicy(1, 15.625));
+        assertTrue(limits.tryAcquire("a", 1, NOW));
+
+        assertEquals(128, limits.reserve("a", 1, NOW, 1000));
+        assertEquals(256, limits.reserve("b", 1, NOW, 1000));
+        assertEquals(-1, limits.reserve("c", 1, NOW, 300));
+        assertTrue(limits.tryAcquire("c", 1, NOW + 384)); // the denial left c's leaf untouched
+    }
+
+    // NOW is a window boundary; the leaf earns a token every 64 ms.
+    @Test
+    void windowLevelReservesUpToItsBoundary() {
+        HierarchicalPolicy limits = new HierarchicalPolicy(new FixedWindowPolicy(1, 1000));
+        ConcurrentTokenBucketPolicy leaf = new ConcurrentTokenBucketPolicy(2, 15.625);
+        limits.root().child("*", leaf);
+
+        assertEquals(0, limits.reserve("a", 1, NOW + 200, 1000));
+        assertEquals(800, limits.reserve("a", 1, NOW + 200, 1000));
+        assertEquals(-1, limits.reserve("a", 1, NOW + 200, 1000)); // the root's next window is full
+        assertEquals(64, leaf.waitMillis("a", 1, NOW + 200)); // the leaf gave its reservation back
+        assertFalse(limits.tryAcquire("b", 1, NOW + 1000));
+    }
+
+    @Test
+    void unsafeLevelMakesTheTreeUnsafe() {
+        HierarchicalPolicy limits = new HierarchicalPolicy(new ConcurrentTokenBucketPolicy(10, 1));
+        limits.root().child("acme", new ConcurrentTokenBucketPolicy(5, 1));
+        assertTrue(limits.isThreadSafe());
+
+        limits.root().child("*", new TokenBucketPolicy(5, 1));
+        assertFalse(limits.isThreadSafe());
+    }
+}
@@ -0,0 +1,61 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Every millisecond a new key makes one request, so about 1,000 keys are active in any
+// one-second window; the maps must stay near that instead of growing to every key seen.
+class IdleKeyEvictionTest {
+    private static final int LIMIT = 10;
+    private static final long WINDOW_MILLIS = 1000;
+    private static final int KEYS_PER_WINDOW = 1000;
+
+    @Test
+    void tokenBucketForgetsRefilledKeys() {
+        TokenBucketPolicy policy = new TokenBucketPolicy(LIMIT, LIMIT);
+        assertBounded(policy, TokenBucketPolicy::size);
+    }
+
+    @Test
+    void fixedWindowForgetsExpiredKeys() {
+        FixedWindowPolicy policy = new FixedWindowPolicy(LIMIT, WINDOW_MILLIS);
+        assertBounded(policy, FixedWindowPolicy::size);
+    }
+
+    @Test
+    void slidingWindowCounterForgetsExpiredKeys() {
+        SlidingWindowCounterPolicy policy = new SlidingWindowCounterPolicy(LIMIT, WINDOW_MILLIS);
+        // Keeps a key for the previous window too.
+        assertBounded(policy, SlidingWindowCounterPolicy::size, 2);
+    }
+
+    @Test
+    void slidingWindowLogForgetsExpiredKeys() {
+        SlidingWindowLogPolicy policy = new SlidingWindowLogPolicy(LIMIT, WINDOW_MILLIS);
+        assertBounded(policy, SlidingWindowLogPolicy::size);
+    }
+
+    @Test
+    void gcraForgetsKeysWhoseTatHasPassed() {
+        GcraPolicy policy = new GcraPolicy(LIMIT, WINDOW_MILLIS);
+        assertBounded(policy, GcraPolicy::size);
+    }
+
+    private static <P extends RateLimitPolicy> void assertBounded(P policy, ToIntFunction<P> size) {
+        assertBounded(policy, size, 1);
+    }
+
+    private static <P extends RateLimitPolicy> void assertBounded(P policy, ToIntFunction<P> size, int windows) {
+        long start = 1_000_000;
+        int maxSize = 0;
+        for (int i = 0; i < 60 * KEYS_PER_WINDOW; i++) {
+            policy.allowRequest("key-" + i, start + i);
+            maxSize = Math.max(maxSize, size.applyAsInt(policy));
+        }
+        int bound = 2 * windows * KEYS_PER_WINDOW;
+        assertTrue(maxSize <= bound, "map grew to " + maxSize + " keys, expected at most " + bound);
+    }
+}
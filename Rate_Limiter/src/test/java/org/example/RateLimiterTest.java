@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @Test
+    void acquireWaitsForReservedPermit() throws Exception {
+        RateLimiter limiter = new RateLimiter(new ConcurrentTokenBucketPolicy(1, 20));
+        assertTrue(limiter.tryAcquire("k", 1));
+
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire("k", 1, 1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void acquireFailsFastWhenWaitExceedsTimeout() throws Exception {
+        RateLimiter limiter = new RateLimiter(new ConcurrentTokenBucketPolicy(1, 0.1));
+        assertTrue(limiter.tryAcquire("k", 1));
+
+        long start = System.nanoTime();
+        assertFalse(limiter.acquire("k", 1, 1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void acquireAsyncCompletesOnGivenExecutor() throws Exception {
+        RateLimiter limiter = new RateLimiter(new StripedTokenBucketPolicy(1, 20, 1));
+        assertTrue(limiter.tryAcquire("k", 1));
+        AtomicInteger tasks = new AtomicInteger();
+        Executor executor = task -> {
+            tasks.incrementAndGet();
+            new Thread(task).start();
+        };
+
+        CompletableFuture<Boolean> granted = limiter.acquireAsync("k", 1, 1, TimeUnit.SECONDS, executor);
+
+        assertTrue(granted.get(5, TimeUnit.SECONDS));
+        assertEquals(1, tasks.get());
+    }
+
+    @Test
+    void cancellingAsyncAcquireGivesReservationBack() {
+        RateLimiter limiter = new RateLimiter(new ConcurrentTokenBucketPolicy(2, 0.1));
+        assertTrue(limiter.tryAcquire("k", 1));
+
+        CompletableFuture<Boolean> granted = limiter.acquireAsync("k", 2, 1, TimeUnit.MINUTES);
+        assertFalse(granted.isDone());
+        granted.cancel(false);
+
+        assertTrue(limiter.tryAcquire("k", 1));
+        assertFalse(limiter.tryAcquire("k", 1));
+    }
+
+    // The key's hour is full, so the reservation is in the next one; a second would
+    // need the hour after that unless the first was given back.
+    @Test
+    void failedAsyncAcquireGivesReservationBack() {
+        RateLimiter limiter = new RateLimiter(new FixedWindowPolicy(1, TimeUnit.HOURS.toMillis(1)));
+        assertTrue(limiter.tryAcquire("k", 1));
+
+        CompletableFuture<Boolean> granted = limiter.acquireAsync("k", 1, 90, TimeUnit.MINUTES);
+        assertFalse(granted.isDone());
+        granted.completeExceptionally(new IllegalStateException("caller gave up"));
+
+        CompletableFuture<Boolean> next = limiter.acquireAsync("k", 1, 90, TimeUnit.MINUTES);
+        assertFalse(next.isDone());
+        next.cancel(false);
+    }
+
+    @Test
+    void unsafePolicyIsSerialized() throws Exception {
+        RateLimiter limiter = new RateLimiter(new TokenBucketPolicy(1000, 0.001));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                callers.add(() -> {
+                    int admitted = 0;
+                    for (int j = 0; j < 500; j++) {
+                        if (limiter.tryAcquire("k", 1)) {
+                            admitted++;
+                        }
+                    }
+                    return admitted;
+                });
+            }
+            int admitted = 0;
+            for (Future<Integer> future : pool.invokeAll(callers)) {
+                admitted += future.get();
+            }
+            assertEquals(1000, admitted);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
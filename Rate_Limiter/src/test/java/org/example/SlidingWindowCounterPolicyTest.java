@@ -0,0 +1,53 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterPolicyTest {
+    private static final long NOW = 1_000_000; // a window boundary
+
+    // Four requests in the previous window still weigh 4 * 750 / 1000 = 3 a quarter
+    // into the next one, leaving room for exactly one.
+    @Test
+    void reserveWaitsUntilThePreviousWindowWeighsLittleEnough() {
+        SlidingWindowCounterPolicy policy = new SlidingWindowCounterPolicy(4, 1000);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(policy.tryAcquire("k", 1, NOW));
+        }
+
+        assertEquals(-1, policy.reserve("k", 1, NOW + 500, 700));
+        assertEquals(750, policy.reserve("k", 1, NOW + 500, 1000));
+
+        assertFalse(policy.tryAcquire("k", 1, NOW + 900)); // queued behind the reservation
+        assertFalse(policy.tryAcquire("k", 1, NOW + 1250));
+        assertTrue(policy.tryAcquire("k", 1, NOW + 1500));
+    }
+
+    // A fixed window would admit a second full burst right after the boundary.
+    @Test
+    void burstAtTheEndOfAWindowStillCountsAfterTheBoundary() {
+        SlidingWindowCounterPolicy policy = new SlidingWindowCounterPolicy(10, 1000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(policy.tryAcquire("k", 1, NOW - 1));
+        }
+
+        assertFalse(policy.tryAcquire("k", 1, NOW));
+        assertFalse(policy.tryAcquire("k", 1, NOW + 99));
+        assertTrue(policy.tryAcquire("k", 1, NOW + 100)); // the burst weighs 9 now
+        assertFalse(policy.tryAcquire("k", 1, NOW + 100));
+        assertTrue(policy.tryAcquire("k", 4, NOW + 500));
+        assertFalse(policy.tryAcquire("k", 1, NOW + 500));
+    }
+
+    @Test
+    void windowOlderThanThePreviousOneIsForgotten() {
+        SlidingWindowCounterPolicy policy = new SlidingWindowCounterPolicy(10, 1000);
+        assertTrue(policy.tryAcquire("k", 10, NOW - 1));
+
+        assertTrue(policy.tryAcquire("k", 10, NOW + 1000));
+        assertFalse(policy.tryAcquire("k", 1, NOW + 1000));
+    }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowLogPolicyTest {
+    private static final long NOW = 1_000_000;
+
+    @Test
+    void reserveWaitsForTheOldestEntryToAgeOut() {
+        SlidingWindowLogPolicy policy = new SlidingWindowLogPolicy(2, 1000);
+        policy.tryAcquire("k", 1, NOW);
+        policy.tryAcquire("k", 1, NOW + 100);
+
+        assertEquals(800, policy.reserve("k", 1, NOW + 200, 1000));
+        assertEquals(900, policy.reserve("k", 1, NOW + 200, 1000));
+        assertEquals(-1, policy.reserve("k", 1, NOW + 200, 1000)); // next room at NOW + 2000
+
+        assertFalse(policy.tryAcquire("k", 1, NOW + 1050)); // queued behind the reservations
+        assertFalse(policy.tryAcquire("k", 1, NOW + 1100));
+    }
+
+    @Test
+    void releaseDropsTheReservation() {
+        SlidingWindowLogPolicy policy = new SlidingWindowLogPolicy(1, 1000);
+        policy.tryAcquire("k", 1, NOW);
+        assertEquals(1000, policy.reserve("k", 1, NOW, 2000));
+
+        policy.release("k", 1, NOW);
+
+        assertEquals(1000, policy.reserve("k", 1, NOW, 2000));
+    }
+
+    @Test
+    void eachAdmissionFreesItsSlotExactlyOneWindowLater() {
+        SlidingWindowLogPolicy policy = new SlidingWindowLogPolicy(3, 1000);
+        assertTrue(policy.tryAcquire("k", 1, NOW - 2));
+        assertTrue(policy.tryAcquire("k", 1, NOW - 1));
+        assertTrue(policy.tryAcquire("k", 1, NOW));
+
+        assertFalse(policy.tryAcquire("k", 1, NOW + 997));
+        assertTrue(policy.tryAcquire("k", 1, NOW + 998));
+        assertFalse(policy.tryAcquire("k", 1, NOW + 998));
+        assertFalse(policy.tryAcquire("k", 2, NOW + 999)); // only the slot from NOW - 1 is free
+        assertTrue(policy.tryAcquire("k", 1, NOW + 999));
+        assertTrue(policy.tryAcquire("k", 1, NOW + 1000));
+        assertFalse(policy.tryAcquire("k", 1, NOW + 1000));
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedTokenBucketPolicyTest {
+    private static final long NOW = 1_000_000;
+
+    @Test
+    void requestLargerThanOneStripeBorrowsAcrossStripes() {
+        StripedTokenBucketPolicy policy = new StripedTokenBucketPolicy(100, 1, 8);
+
+        assertTrue(policy.tryAcquire("global", 20, NOW));
+        assertTrue(policy.tryAcquire("global", 80, NOW));
+        assertFalse(policy.tryAcquire("global", 1, NOW));
+    }
+
+    @Test
+    void shortfallLeavesBudgetUntouched() {
+        StripedTokenBucketPolicy policy = new StripedTokenBucketPolicy(100, 1, 8);
+        assertTrue(policy.tryAcquire("global", 70, NOW));
+
+        assertFalse(policy.tryAcquire("global", 31, NOW));
+        assertTrue(policy.tryAcquire("global", 30, NOW));
+    }
+
+    @Test
+    void releaseReturnsEveryPermitWithoutExceedingCapacity() {
+        StripedTokenBucketPolicy policy = new StripedTokenBucketPolicy(100, 1, 8);
+        assertTrue(policy.tryAcquire("global", 60, NOW));
+
+        policy.release("global", 60, NOW);
+        // Releasing into a full budget must not push any stripe above its share.
+        policy.release("global", 50, NOW);
+
+        assertTrue(policy.tryAcquire("global", 100, NOW));
+        assertFalse(policy.tryAcquire("global", 1, NOW));
+    }
+
+    @Test
+    void reservationLargerThanOneStripeSpreadsOverStripes() {
+        StripedTokenBucketPolicy policy = new StripedTokenBucketPolicy(8, 1, 8);
+        assertTrue(policy.tryAcquire("global", 8, NOW));
+
+        // Each stripe refills at 1/8 per second, so one permit from each takes 8 s.
+        long waitMillis = policy.reserve("global", 8, NOW, 10_000);
+        assertTrue(waitMillis > 7_990 && waitMillis <= 8_000, "wait " + waitMillis);
+        assertEquals(-1, policy.reserve("global", 1, NOW, 10_000));
+        assertEquals(-1, policy.reserve("global", 9, NOW, Long.MAX_VALUE));
+    }
+
+    // 8 stripes at 16 tokens/s in total: the documented bound is 2 * 8 / 16 s.
+    @Test
+    void reserveWaitsAtMostTheDocumentedBoundLongerThanOneBucket() {
+        StripedTokenBucketPolicy striped = new StripedTokenBucketPolicy(64, 16, 8);
+        ConcurrentTokenBucketPolicy exact = new ConcurrentTokenBucketPolicy(64, 16);
+        assertTrue(striped.tryAcquire("global", 64, NOW));
+        assertTrue(exact.tryAcquire("global", 64, NOW));
+
+        Random random = new Random(42);
+        long now = NOW;
+        for (int i = 0; i < 200; i++) {
+            now += random.nextInt(400);
+            int permits = 1 + random.nextInt(16);
+            long exactWait = exact.reserve("global", permits, now, Long.MAX_VALUE);
+            long stripedWait = striped.reserve("global", permits, now, Long.MAX_VALUE);
+            assertTrue(stripedWait >= 0 && stripedWait <= exactWait + 1000,
+                    "request " + i + ": striped " + stripedWait + " ms, exact " + exactWait + " ms");
+        }
+    }
+
+    @Test
+    void concurrentCallersNeverExceedBurstPlusRefill() throws Exception {
+        int capacity = 1000;
+        double ratePerSecond = 1000;
+        StripedTokenBucketPolicy policy = new StripedTokenBucketPolicy(capacity, ratePerSecond, 8);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            long start = System.currentTimeMillis();
+            long end = start + 1000;
+            List<Callable<Long>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int permits = i % 2 == 0 ? 1 : 300; // mix single permits with cross-stripe requests
+                callers.add(() -> {
+                    long admitted = 0;
+                    for (long now; (now = System.currentTimeMillis()) < end; ) {
+                        if (policy.tryAcquire("global", permits, now)) {
+                            admitted += permits;
+                        }
+                    }
+                    return admitted;
+                });
+            }
+            long admitted = 0;
+            for (Future<Long> future : pool.invokeAll(callers)) {
+                admitted += future.get();
+            }
+
+            long bound = capacity + (long) Math.ceil(ratePerSecond * (end - start) / 1000.0);
+            assertTrue(admitted <= bound, admitted + " > " + bound);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}